@@ -1,319 +1,523 @@
 package com.aes;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import javax.security.auth.Destroyable;
+
+// Após a construção a instância é imutável: o escalonamento de chaves é só lido e o estado de cada
+// operação fica em variáveis locais ou no scratch do chamador, então uma instância pode ser
+// compartilhada entre threads sem sincronização. destroy() zera o escalonamento quando ninguém mais
+// vai usar a instância.
+public class AES128 implements Destroyable {
+    // Contadores e keystream de até CTR_BATCH blocos (64 + 64 bytes)
+    public static final int SCRATCH_SIZE = 128;
+
+    private static final int CTR_BATCH = 4;
+
+    static final int Nb = 4;
+    static final int Nk = 4;
+    static final int Nr = 10;
+
+    public enum Engine {
+        LEGACY(new LegacyEngine()),
+        TABLE(new TableEngine()),
+        // Tempo constante e 4 blocos por vez, sem SIMD; é o reserva do VECTOR
+        BITSLICED(new BitslicedEngine()),
+        // O circuito do BITSLICED na Vector API, vários lotes de 4 blocos por instrução; compensa em ECB, com
+        // padding e em lotes, com muitos blocos. Só existe no build com mvn -Pvector e exige
+        // java --add-modules jdk.incubator.vector; sem os dois, vira BITSLICED.
+        VECTOR(vectorEngine());
+
+        // Implementação usada por new AES128(key); escolhida em tempo de execução com -Daes.engine=VECTOR,
+        // por exemplo. Valores desconhecidos caem para TABLE.
+        public static final Engine DEFAULT = fromProperty(System.getProperty("aes.engine"));
+
+        final BlockEngine impl;
+
+        Engine(BlockEngine impl) {
+            this.impl = impl;
+        }
+
+        // VectorEngine referencia jdk.incubator.vector, então só é carregado por reflexão com o módulo presente
+        private static BlockEngine vectorEngine() {
+            if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+                try {
+                    Class<?> type = Class.forName("com.aes.VectorEngine");
+                    if ((boolean) type.getDeclaredMethod("isSupported").invoke(null)) {
+                        return (BlockEngine) type.getDeclaredConstructor().newInstance();
+                    }
+                } catch (ReflectiveOperationException | LinkageError ignored) {
+                }
+            }
+            return new BitslicedEngine();
+        }
 
-public class AES128 {
-    private static final int Nb = 4;
-    private static final int Nk = 4;
-    private static final int Nr = 10;
+        private static Engine fromProperty(String name) {
+            if (name != null) {
+                for (Engine engine : values()) {
+                    if (engine.name().equalsIgnoreCase(name.trim())) {
+                        return engine;
+                    }
+                }
+            }
+            return TABLE;
+        }
+    }
 
-    private byte[] key;
-    private byte[][] state;
+    private final BlockEngine engine;
+    private final int[] encKey;
+    private final int[] decKey;
+    private volatile boolean destroyed;
 
     public AES128(byte[] key) {
+        this(key, Engine.DEFAULT);
+    }
+
+    public AES128(byte[] key, Engine engine) {
         if (key.length != 16) {
             throw new IllegalArgumentException("Chave deve ter 128 bits (16 bytes)");
         }
-        this.key = key;
-        this.state = new byte[4][Nb];
+        this.engine = engine.impl;
+        int[] w = keyExpansion(key);
+        int[] inverse = inverseKeyExpansion(w);
+        this.encKey = this.engine.prepareKey(w);
+        this.decKey = this.engine.prepareKey(inverse);
+        // Motores que convertem o escalonamento (BITSLICED) deixam o original para trás, com a chave junto
+        if (encKey != w) {
+            Arrays.fill(w, 0);
+        }
+        if (decKey != inverse) {
+            Arrays.fill(inverse, 0);
+        }
     }
 
-    public byte[] encrypt(byte[] plaintext) {
-        if (plaintext.length % 16 != 0) {
-            plaintext = pad(plaintext);
-        }
+    // A rodada 0 do escalonamento é a própria chave, então zerar os dois arrays tira a chave do heap. Os
+    // motores não guardam cópia: o formato preparado por prepareKey vive só nestes arrays. Depois disso a
+    // instância não pode mais ser usada; quem a compartilha (AESKeyCache) só chama quando ninguém a usa.
+    @Override
+    public void destroy() {
+        Arrays.fill(encKey, 0);
+        Arrays.fill(decKey, 0);
+        destroyed = true;
+    }
 
-        for (int i = 0; i < 16; i++) {
-            state[i / 4][i % 4] = plaintext[i];
-        }
+    @Override
+    public boolean isDestroyed() {
+        return destroyed;
+    }
 
-        byte[][] expandedKeys = keyExpansion(key);
+    public byte[] encrypt(byte[] plaintext) {
+        byte[] ciphertext = new byte[paddedLength(plaintext.length)];
+        encryptPadded(plaintext, 0, plaintext.length, ciphertext, 0);
+        return ciphertext;
+    }
 
-        addRoundKey(state, Arrays.copyOfRange(expandedKeys, 0, 4));
+    public byte[] decrypt(byte[] ciphertext) {
+        byte[] plaintext = new byte[ciphertext.length];
+        return Arrays.copyOf(plaintext, decryptPadded(ciphertext, 0, ciphertext.length, plaintext, 0));
+    }
 
-        for (int round = 1; round < Nr; round++) {
-            subBytes(state);
-            shiftRows(state);
-            mixColumns(state);
-            addRoundKey(state, Arrays.copyOfRange(expandedKeys, round * 4, (round + 1) * 4));
-        }
+    // Tamanho cifrado de len bytes com padding PKCS#7 (sempre ao menos um byte de padding)
+    public static int paddedLength(int len) {
+        return len + 16 - len % 16;
+    }
 
-        subBytes(state);
-        shiftRows(state);
-        addRoundKey(state, Arrays.copyOfRange(expandedKeys, Nr * 4, (Nr + 1) * 4));
+    // Variantes de encrypt/decrypt sem alocação: o padding é escrito e validado direto nos arrays do
+    // chamador. Aceitam in == out no mesmo offset.
+    public int encryptPadded(byte[] in, int inOff, int len, byte[] out, int outOff) {
+        int padded = paddedLength(len);
+        Objects.checkFromIndexSize(inOff, len, in.length);
+        Objects.checkFromIndexSize(outOff, padded, out.length);
+        System.arraycopy(in, inOff, out, outOff, len);
+        Arrays.fill(out, outOff + len, outOff + padded, (byte) (padded - len));
+        engine.encryptBlocks(encKey, out, outOff, out, outOff, padded / 16);
+        return padded;
+    }
 
-        byte[] ciphertext = new byte[16];
-        for (int i = 0; i < 16; i++) {
-            ciphertext[i] = state[i / 4][i % 4];
+    // Devolve o tamanho do texto claro, que fica em out[outOff..outOff + n)
+    public int decryptPadded(byte[] in, int inOff, int len, byte[] out, int outOff) {
+        if (len == 0 || len % 16 != 0) {
+            throw new IllegalArgumentException("A entrada deve ser um múltiplo de 128 bits (16 bytes)");
         }
+        decryptECB(in, inOff, len, out, outOff);
+        return unpaddedLength(out, outOff, len);
+    }
 
-        return ciphertext;
+    // Tamanho sem o padding PKCS#7 de dados já decifrados em data[off..off + len). O valor tem de estar em
+    // 1..16 e todos os bytes do padding iguais a ele. Os 16 últimos bytes são sempre lidos e não há desvio
+    // conforme o conteúdo, para o tempo da checagem não revelar onde o padding falhou.
+    static int unpaddedLength(byte[] data, int off, int len) {
+        checkPaddedLength(len);
+        int paddingLength = data[off + len - 1] & 0xFF;
+        int bad = paddingOutOfRange(paddingLength);
+        for (int i = 1; i <= 16; i++) {
+            bad |= paddingMismatch(data[off + len - i], paddingLength, i);
+        }
+        return unpadded(len, paddingLength, bad);
     }
 
-    public byte[] decrypt(byte[] ciphertext) {
-        if (ciphertext.length % 16 != 0) {
-            throw new IllegalArgumentException("O bloco de entrada deve ter 128 bits (16 bytes)");
+    static int unpaddedLength(ByteBuffer data, int off, int len) {
+        checkPaddedLength(len);
+        int paddingLength = data.get(off + len - 1) & 0xFF;
+        int bad = paddingOutOfRange(paddingLength);
+        for (int i = 1; i <= 16; i++) {
+            bad |= paddingMismatch(data.get(off + len - i), paddingLength, i);
         }
+        return unpadded(len, paddingLength, bad);
+    }
 
-        for (int i = 0; i < 16; i++) {
-            state[i / 4][i % 4] = ciphertext[i];
+    private static void checkPaddedLength(int len) {
+        if (len < 16 || len % 16 != 0) {
+            throw new IllegalArgumentException("Padding inválido");
         }
+    }
 
-        byte[][] expandedKeys = keyExpansion(key);
+    // Diferente de zero se paddingLength está fora de 1..16
+    private static int paddingOutOfRange(int paddingLength) {
+        return ((paddingLength - 1) | (16 - paddingLength)) >>> 31;
+    }
 
-        addRoundKey(state, Arrays.copyOfRange(expandedKeys, Nr * 4, (Nr + 1) * 4));
+    // Diferente de zero se o i-ésimo byte a partir do fim está dentro do padding e não vale paddingLength
+    private static int paddingMismatch(byte b, int paddingLength, int i) {
+        return ((b & 0xFF) ^ paddingLength) & ((i - paddingLength - 1) >> 31);
+    }
 
-        for (int round = Nr - 1; round > 0; round--) {
-            invShiftRows(state);
-            invSubBytes(state);
-            addRoundKey(state, Arrays.copyOfRange(expandedKeys, round * 4, (round + 1) * 4));
-            invMixColumns(state);
+    private static int unpadded(int len, int paddingLength, int bad) {
+        if (bad != 0) {
+            throw new IllegalArgumentException("Padding inválido");
         }
+        return len - paddingLength;
+    }
 
-        invShiftRows(state);
-        invSubBytes(state);
-        addRoundKey(state, Arrays.copyOfRange(expandedKeys, 0, 4));
-
-        byte[] plaintext = new byte[16];
-        for (int i = 0; i < 16; i++) {
-            plaintext[i] = state[i / 4][i % 4];
+    // Lote de mensagens independentes, cada uma com o seu padding como em encrypt. Todas são empacotadas num
+    // único buffer e cifradas numa só chamada ao motor: o escalonamento e o scratch servem ao lote inteiro e
+    // o BITSLICED e o VECTOR juntam blocos de mensagens diferentes nos seus lotes.
+    public List<byte[]> encryptBatch(List<byte[]> plaintexts) {
+        byte[] buffer = new byte[batchLength(plaintexts)];
+        encryptBatch(plaintexts, buffer, 0);
+        List<byte[]> ciphertexts = new ArrayList<>(plaintexts.size());
+        int off = 0;
+        for (byte[] plaintext : plaintexts) {
+            int padded = paddedLength(plaintext.length);
+            ciphertexts.add(Arrays.copyOfRange(buffer, off, off + padded));
+            off += padded;
         }
+        return ciphertexts;
+    }
 
-        return removePadding(plaintext);
+    // Escreve os textos cifrados em sequência a partir de out[outOff]; o i-ésimo ocupa paddedLength do
+    // i-ésimo texto claro. Devolve o total escrito.
+    public int encryptBatch(List<byte[]> plaintexts, byte[] out, int outOff) {
+        int total = batchLength(plaintexts);
+        Objects.checkFromIndexSize(outOff, total, out.length);
+        int off = outOff;
+        for (byte[] plaintext : plaintexts) {
+            int padded = paddedLength(plaintext.length);
+            System.arraycopy(plaintext, 0, out, off, plaintext.length);
+            Arrays.fill(out, off + plaintext.length, off + padded, (byte) (padded - plaintext.length));
+            off += padded;
+        }
+        engine.encryptBlocks(encKey, out, outOff, out, outOff, total / 16);
+        return total;
     }
 
-    private byte[][] keyExpansion(byte[] key) {
-        byte[][] expandedKeys = new byte[4 * (Nr + 1)][4];
-        byte[] temp = new byte[4];
-        int i = 0;
+    public List<byte[]> decryptBatch(List<byte[]> ciphertexts) {
+        int total = 0;
+        for (byte[] ciphertext : ciphertexts) {
+            if (ciphertext.length == 0 || ciphertext.length % 16 != 0) {
+                throw new IllegalArgumentException("A entrada deve ser um múltiplo de 128 bits (16 bytes)");
+            }
+            total = Math.addExact(total, ciphertext.length);
+        }
+        byte[] buffer = new byte[total];
+        int off = 0;
+        for (byte[] ciphertext : ciphertexts) {
+            System.arraycopy(ciphertext, 0, buffer, off, ciphertext.length);
+            off += ciphertext.length;
+        }
+        engine.decryptBlocks(decKey, buffer, 0, buffer, 0, total / 16);
+
+        List<byte[]> plaintexts = new ArrayList<>(ciphertexts.size());
+        off = 0;
+        for (byte[] ciphertext : ciphertexts) {
+            plaintexts.add(Arrays.copyOfRange(buffer, off, off + unpaddedLength(buffer, off, ciphertext.length)));
+            off += ciphertext.length;
+        }
+        return plaintexts;
+    }
 
-        while (i < Nk) {
-            expandedKeys[i][0] = key[4 * i];
-            expandedKeys[i][1] = key[4 * i + 1];
-            expandedKeys[i][2] = key[4 * i + 2];
-            expandedKeys[i][3] = key[4 * i + 3];
-            i++;
+    // Tamanho cifrado do lote inteiro
+    public static int batchLength(List<byte[]> plaintexts) {
+        int total = 0;
+        for (byte[] plaintext : plaintexts) {
+            total = Math.addExact(total, paddedLength(plaintext.length));
         }
+        return total;
+    }
 
-        i = Nk;
-        while (i < 4 * (Nr + 1)) {
-            temp[0] = expandedKeys[i - 1][0];
-            temp[1] = expandedKeys[i - 1][1];
-            temp[2] = expandedKeys[i - 1][2];
-            temp[3] = expandedKeys[i - 1][3];
+    public void encryptBlock(byte[] in, int inOff, byte[] out, int outOff) {
+        checkRange(in, inOff, 16, out, outOff);
+        engine.encryptBlock(encKey, in, inOff, out, outOff);
+    }
 
-            if (i % Nk == 0) {
-                temp = xorWords(rotateWord(temp), subWord(temp));
-                temp[0] = (byte) (temp[0] ^ rCon(i / Nk));
+    public void decryptBlock(byte[] in, int inOff, byte[] out, int outOff) {
+        checkRange(in, inOff, 16, out, outOff);
+        engine.decryptBlock(decKey, in, inOff, out, outOff);
+    }
 
-            }
+    public void encryptECB(byte[] in, int inOff, int len, byte[] out, int outOff) {
+        checkBlocks(in, inOff, len, out, outOff);
+        engine.encryptBlocks(encKey, in, inOff, out, outOff, len / 16);
+    }
+
+    public void decryptECB(byte[] in, int inOff, int len, byte[] out, int outOff) {
+        checkBlocks(in, inOff, len, out, outOff);
+        engine.decryptBlocks(decKey, in, inOff, out, outOff, len / 16);
+    }
 
-            expandedKeys[i] = xorWords(expandedKeys[i - Nk], temp);
-            i++;
+    // Variantes para ByteBuffer (inclusive diretos) por índice absoluto, sem copiar para byte[]
+    public void encryptECB(ByteBuffer in, int inOff, int len, ByteBuffer out, int outOff) {
+        checkBlocks(in, inOff, len, out, outOff);
+        for (int i = 0; i < len; i += 16) {
+            engine.encryptBlock(encKey, in, inOff + i, out, outOff + i);
         }
+    }
 
-        return expandedKeys;
+    public void decryptECB(ByteBuffer in, int inOff, int len, ByteBuffer out, int outOff) {
+        checkBlocks(in, inOff, len, out, outOff);
+        for (int i = 0; i < len; i += 16) {
+            engine.decryptBlock(decKey, in, inOff + i, out, outOff + i);
+        }
     }
 
-    private byte[] xorWords(byte[] word1, byte[] word2) {
-        byte[] result = new byte[word1.length];
-        for (int i = 0; i < word1.length; i++) {
-            result[i] = (byte) (word1[i] ^ word2[i]);
+    public void encryptCBC(byte[] iv, byte[] in, int inOff, int len, byte[] out, int outOff) {
+        checkIv(iv);
+        checkBlocks(in, inOff, len, out, outOff);
+        byte[] prev = iv;
+        int prevOff = 0;
+        for (int i = 0; i < len; i += 16) {
+            int o = outOff + i;
+            for (int j = 0; j < 16; j++) {
+                out[o + j] = (byte) (in[inOff + i + j] ^ prev[prevOff + j]);
+            }
+            engine.encryptBlock(encKey, out, o, out, o);
+            prev = out;
+            prevOff = o;
         }
-        return result;
     }
 
-    private void subBytes(byte[][] state) {
-        for (int i = 0; i < 4; i++) {
-            for (int j = 0; j < Nb; j++) {
-                state[i][j] = sBoxTransform(state[i][j]);
+    public void decryptCBC(byte[] iv, byte[] in, int inOff, int len, byte[] out, int outOff) {
+        decryptCBC(iv, in, inOff, len, out, outOff, new byte[SCRATCH_SIZE]);
+    }
+
+    // Guarda o bloco cifrado anterior no scratch antes de decifrar, permitindo in == out no mesmo offset
+    public void decryptCBC(byte[] iv, byte[] in, int inOff, int len, byte[] out, int outOff, byte[] scratch) {
+        checkIv(iv);
+        checkBlocks(in, inOff, len, out, outOff);
+        checkScratch(scratch);
+        System.arraycopy(iv, 0, scratch, 0, 16);
+        int prev = 0;
+        for (int i = 0; i < len; i += 16) {
+            int saved = 16 - prev;
+            System.arraycopy(in, inOff + i, scratch, saved, 16);
+            engine.decryptBlock(decKey, in, inOff + i, out, outOff + i);
+            for (int j = 0; j < 16; j++) {
+                out[outOff + i + j] ^= scratch[prev + j];
             }
+            prev = saved;
         }
     }
 
-    private void invSubBytes(byte[][] state) {
-        for (int i = 0; i < 4; i++) {
-            for (int j = 0; j < Nb; j++) {
-                state[i][j] = invSBoxTransform(state[i][j]);
+    // CTR: o IV é o bloco contador inicial (incremento big-endian de 128 bits); aceita qualquer tamanho
+    public void processCTR(byte[] iv, byte[] in, int inOff, int len, byte[] out, int outOff) {
+        processCTR(iv, 0, in, inOff, len, out, outOff, new byte[SCRATCH_SIZE]);
+    }
+
+    public void processCTR(byte[] iv, long blockOffset, byte[] in, int inOff, int len, byte[] out, int outOff) {
+        processCTR(iv, blockOffset, in, inOff, len, out, outOff, new byte[SCRATCH_SIZE]);
+    }
+
+    // blockOffset: quantos blocos de keystream pular a partir do IV, para processar trechos independentes
+    public void processCTR(byte[] iv, long blockOffset, byte[] in, int inOff, int len, byte[] out, int outOff,
+            byte[] scratch) {
+        checkIv(iv);
+        checkRange(in, inOff, len, out, outOff);
+        checkScratch(scratch);
+        System.arraycopy(iv, 0, scratch, 0, 16);
+        if (blockOffset != 0) {
+            add(scratch, blockOffset);
+        }
+        for (int i = 0; i < len; i += 16 * CTR_BATCH) {
+            int n = Math.min(16 * CTR_BATCH, len - i);
+            nextKeystream(scratch, (n + 15) / 16);
+            for (int j = 0; j < n; j++) {
+                out[outOff + i + j] = (byte) (in[inOff + i + j] ^ scratch[64 + j]);
             }
         }
     }
 
-    private void shiftRows(byte[][] state) {
-        for (int i = 1; i < 4; i++) {
-            state[i] = leftRotate(state[i], i);
+    public void processCTR(byte[] iv, long blockOffset, ByteBuffer in, int inOff, int len, ByteBuffer out,
+            int outOff, byte[] scratch) {
+        checkIv(iv);
+        Objects.checkFromIndexSize(inOff, len, in.limit());
+        Objects.checkFromIndexSize(outOff, len, out.limit());
+        checkScratch(scratch);
+        System.arraycopy(iv, 0, scratch, 0, 16);
+        if (blockOffset != 0) {
+            add(scratch, blockOffset);
+        }
+        for (int i = 0; i < len; i += 16 * CTR_BATCH) {
+            int n = Math.min(16 * CTR_BATCH, len - i);
+            nextKeystream(scratch, (n + 15) / 16);
+            for (int j = 0; j < n; j++) {
+                out.put(outOff + i + j, (byte) (in.get(inOff + i + j) ^ scratch[64 + j]));
+            }
         }
     }
 
-    private void invShiftRows(byte[][] state) {
-        for (int i = 1; i < 4; i++) {
-            state[i] = rightRotate(state[i], i);
+    // Cifra os contadores scratch[0..16·blocks) para scratch[64..) de uma vez e deixa em scratch[0..16)
+    // o contador seguinte
+    private void nextKeystream(byte[] scratch, int blocks) {
+        for (int b = 1; b < blocks; b++) {
+            System.arraycopy(scratch, 16 * (b - 1), scratch, 16 * b, 16);
+            increment(scratch, 16 * b);
+        }
+        engine.encryptBlocks(encKey, scratch, 0, scratch, 64, blocks);
+        if (blocks > 1) {
+            System.arraycopy(scratch, 16 * (blocks - 1), scratch, 0, 16);
         }
+        increment(scratch, 0);
     }
 
-    // Realiza a operação MixColumns
-    private void mixColumns(byte[][] state) {
-        for (int c = 0; c < Nb; c++) {
-            byte[] col = new byte[4];
-            for (int i = 0; i < 4; i++) {
-                col[i] = state[i][c];
+    // Incrementa o contador big-endian de 16 bytes a partir de off
+    private static void increment(byte[] counter, int off) {
+        for (int i = off + 15; i >= off; i--) {
+            if (++counter[i] != 0) {
+                break;
             }
+        }
+    }
 
-            state[0][c] = (byte) (gfMultiply(col[0], (byte) 0x02) ^ gfMultiply(col[1], (byte) 0x03)
-                    ^ col[2] ^ col[3]);
-            state[1][c] = (byte) (col[0] ^ gfMultiply(col[1], (byte) 0x02)
-                    ^ gfMultiply(col[2], (byte) 0x03) ^ col[3]);
-            state[2][c] = (byte) (col[0] ^ col[1] ^ gfMultiply(col[2], (byte) 0x02)
-                    ^ gfMultiply(col[3], (byte) 0x03));
-            state[3][c] = (byte) (gfMultiply(col[0], (byte) 0x03) ^ col[1] ^ col[2]
-                    ^ gfMultiply(col[3], (byte) 0x02));
+    private static void add(byte[] counter, long n) {
+        long carry = n;
+        for (int i = 15; i >= 0 && carry != 0; i--) {
+            long sum = (counter[i] & 0xFF) + (carry & 0xFF);
+            counter[i] = (byte) sum;
+            carry = (carry >>> 8) + (sum >>> 8);
         }
     }
 
-    private void invMixColumns(byte[][] state) {
-        for (int c = 0; c < Nb; c++) {
-            byte[] col = new byte[4];
-            for (int i = 0; i < 4; i++) {
-                col[i] = state[i][c];
-            }
+    private static void checkScratch(byte[] scratch) {
+        if (scratch.length < SCRATCH_SIZE) {
+            throw new IllegalArgumentException("Área de trabalho deve ter ao menos " + SCRATCH_SIZE + " bytes");
+        }
+    }
 
-            state[0][c] = (byte) (gfMultiply(col[0], (byte) 0x0e) ^ gfMultiply(col[1], (byte) 0x0b)
-                    ^ gfMultiply(col[2], (byte) 0x0d) ^ gfMultiply(col[3], (byte) 0x09));
-            state[1][c] = (byte) (gfMultiply(col[0], (byte) 0x09) ^ gfMultiply(col[1], (byte) 0x0e)
-                    ^ gfMultiply(col[2], (byte) 0x0b) ^ gfMultiply(col[3], (byte) 0x0d));
-            state[2][c] = (byte) (gfMultiply(col[0], (byte) 0x0d) ^ gfMultiply(col[1], (byte) 0x09)
-                    ^ gfMultiply(col[2], (byte) 0x0e) ^ gfMultiply(col[3], (byte) 0x0b));
-            state[3][c] = (byte) (gfMultiply(col[0], (byte) 0x0b) ^ gfMultiply(col[1], (byte) 0x0d)
-                    ^ gfMultiply(col[2], (byte) 0x09) ^ gfMultiply(col[3], (byte) 0x0e));
+    private static void checkIv(byte[] iv) {
+        if (iv.length != 16) {
+            throw new IllegalArgumentException("IV deve ter 128 bits (16 bytes)");
         }
     }
 
-    byte[] pad(byte[] data) {
-        int paddingLength = 16 - (data.length % 16);
-        byte[] paddedData = new byte[data.length + paddingLength];
-        System.arraycopy(data, 0, paddedData, 0, data.length);
+    private static void checkBlocks(byte[] in, int inOff, int len, byte[] out, int outOff) {
+        if (len % 16 != 0) {
+            throw new IllegalArgumentException("O tamanho deve ser múltiplo de 128 bits (16 bytes)");
+        }
+        checkRange(in, inOff, len, out, outOff);
+    }
 
-        for (int i = data.length; i < paddedData.length; i++) {
-            paddedData[i] = (byte) paddingLength;
+    private static void checkBlocks(ByteBuffer in, int inOff, int len, ByteBuffer out, int outOff) {
+        if (len % 16 != 0) {
+            throw new IllegalArgumentException("O tamanho deve ser múltiplo de 128 bits (16 bytes)");
         }
+        Objects.checkFromIndexSize(inOff, len, in.limit());
+        Objects.checkFromIndexSize(outOff, len, out.limit());
+    }
 
-        return paddedData;
+    private static void checkRange(byte[] in, int inOff, int len, byte[] out, int outOff) {
+        Objects.checkFromIndexSize(inOff, len, in.length);
+        Objects.checkFromIndexSize(outOff, len, out.length);
     }
 
-    private byte[] unpad(byte[] data) {
-        int paddingLength = data[data.length - 1];
-        byte[] unpaddedData = new byte[data.length - paddingLength];
-        System.arraycopy(data, 0, unpaddedData, 0, unpaddedData.length);
-        return unpaddedData;
-    }
-
-    private byte[] rightRotate(byte[] row, int n) {
-        byte[] newRow = new byte[row.length];
-        for (int i = 0; i < row.length; i++) {
-            newRow[i] = row[(i - n + row.length) % row.length];
-        }
-        return newRow;
-    }
-
-    private byte invSBoxTransform(byte in) {
-        byte[] invSBox = {
-                (byte) 0x52, (byte) 0x09, (byte) 0x6a, (byte) 0xd5, (byte) 0x30, (byte) 0x36, (byte) 0xa5, (byte) 0x38,
-                (byte) 0xbf, (byte) 0x40, (byte) 0xa3, (byte) 0x9e, (byte) 0x81, (byte) 0xf3, (byte) 0xd7, (byte) 0xfb,
-                (byte) 0x7c, (byte) 0xe3, (byte) 0x39, (byte) 0x82, (byte) 0x9b, (byte) 0x2f, (byte) 0xff, (byte) 0x87,
-                (byte) 0x34, (byte) 0x8e, (byte) 0x43, (byte) 0x44, (byte) 0xc4, (byte) 0xde, (byte) 0xe9, (byte) 0xcb,
-                (byte) 0x54, (byte) 0x7b, (byte) 0x94, (byte) 0x32, (byte) 0xa6, (byte) 0xc2, (byte) 0x23, (byte) 0x3d,
-                (byte) 0xee, (byte) 0x4c, (byte) 0x95, (byte) 0x0b, (byte) 0x42, (byte) 0xfa, (byte) 0xc3, (byte) 0x4e,
-                (byte) 0x08, (byte) 0x2e, (byte) 0xa1, (byte) 0x66, (byte) 0x28, (byte) 0xd9, (byte) 0x24, (byte) 0xb2,
-                (byte) 0x76, (byte) 0x5b, (byte) 0xa2, (byte) 0x49, (byte) 0x6d, (byte) 0x8b, (byte) 0xd1, (byte) 0x25,
-                (byte) 0x72, (byte) 0xf8, (byte) 0xf6, (byte) 0x64, (byte) 0x86, (byte) 0x68, (byte) 0x98, (byte) 0x16,
-                (byte) 0xd4, (byte) 0xa4, (byte) 0x5c, (byte) 0xcc, (byte) 0x5d, (byte) 0x65, (byte) 0xb6, (byte) 0x92,
-                (byte) 0x6c, (byte) 0x70, (byte) 0x48, (byte) 0x50, (byte) 0xfd, (byte) 0xed, (byte) 0xb9, (byte) 0xda,
-                (byte) 0x5e, (byte) 0x15, (byte) 0x46, (byte) 0x57, (byte) 0xa7, (byte) 0x8d, (byte) 0x9d, (byte) 0x84,
-                (byte) 0x90, (byte) 0xd8, (byte) 0xab, (byte) 0x00, (byte) 0x8c, (byte) 0xbc, (byte) 0xd3, (byte) 0x0a,
-                (byte) 0xf7, (byte) 0xe4, (byte) 0x58, (byte) 0x05, (byte) 0xb8, (byte) 0xb3, (byte) 0x45, (byte) 0x06,
-                (byte) 0xd0, (byte) 0x2c, (byte) 0x1e, (byte) 0x8f, (byte) 0xca, (byte) 0x3f, (byte) 0x0f, (byte) 0x02,
-                (byte) 0xc1, (byte) 0xaf, (byte) 0xbd, (byte) 0x03, (byte) 0x01, (byte) 0x13, (byte) 0x8a, (byte) 0x6b,
-                (byte) 0x3a, (byte) 0x91, (byte) 0x11, (byte) 0x41, (byte) 0x4f, (byte) 0x67, (byte) 0xdc, (byte) 0xea,
-                (byte) 0x97, (byte) 0xf2, (byte) 0xcf, (byte) 0xce, (byte) 0xf0, (byte) 0xb4, (byte) 0xe6, (byte) 0x73,
-                (byte) 0x96, (byte) 0xac, (byte) 0x74, (byte) 0x22, (byte) 0xe7, (byte) 0xad, (byte) 0x35, (byte) 0x85,
-                (byte) 0xe2, (byte) 0xf9, (byte) 0x37, (byte) 0xe8, (byte) 0x1c, (byte) 0x75, (byte) 0xdf, (byte) 0x6e,
-                (byte) 0x47, (byte) 0xf1, (byte) 0x1a, (byte) 0x71, (byte) 0x1d, (byte) 0x29, (byte) 0xc5, (byte) 0x89,
-                (byte) 0x6f, (byte) 0xb7, (byte) 0x62, (byte) 0x0e, (byte) 0xaa, (byte) 0x18, (byte) 0xbe, (byte) 0x1b,
-                (byte) 0xfc, (byte) 0x56, (byte) 0x3e, (byte) 0x4b, (byte) 0xc6, (byte) 0xd2, (byte) 0x79, (byte) 0x20,
-                (byte) 0x9a, (byte) 0xdb, (byte) 0xc0, (byte) 0xfe, (byte) 0x78, (byte) 0xcd, (byte) 0x5a, (byte) 0xf4,
-                (byte) 0x1f, (byte) 0xdd, (byte) 0xa8, (byte) 0x33, (byte) 0x88, (byte) 0x07, (byte) 0xc7, (byte) 0x31,
-                (byte) 0xb1, (byte) 0x12, (byte) 0x10, (byte) 0x59, (byte) 0x27, (byte) 0x80, (byte) 0xec, (byte) 0x5f,
-                (byte) 0x60, (byte) 0x51, (byte) 0x7f, (byte) 0xa9, (byte) 0x19, (byte) 0xb5, (byte) 0x4a, (byte) 0x0d,
-                (byte) 0x2d, (byte) 0xe5, (byte) 0x7a, (byte) 0x9f, (byte) 0x93, (byte) 0xc9, (byte) 0x9c, (byte) 0xef,
-                (byte) 0xa0, (byte) 0xe0, (byte) 0x3b, (byte) 0x4d, (byte) 0xae, (byte) 0x2a, (byte) 0xf5, (byte) 0xb0,
-                (byte) 0xc8, (byte) 0xeb, (byte) 0xbb, (byte) 0x3c, (byte) 0x83, (byte) 0x53, (byte) 0x99, (byte) 0x61,
-                (byte) 0x17, (byte) 0x2b, (byte) 0x04, (byte) 0x7e, (byte) 0xba, (byte) 0x77, (byte) 0xd6, (byte) 0x26,
-                (byte) 0xe1, (byte) 0x69, (byte) 0x14, (byte) 0x63, (byte) 0x55, (byte) 0x21, (byte) 0x0c, (byte) 0x7d
-        };
-        return invSBox[in & 0xFF];
-    }
-
-    private byte[] leftRotate(byte[] row, int n) {
-        byte[] newRow = new byte[row.length];
-        for (int i = 0; i < row.length; i++) {
-            newRow[i] = row[(i + n) % row.length];
-        }
-        return newRow;
-    }
-
-    private byte gfMultiply(byte a, byte b) {
-        byte result = 0;
-        byte highBitMask = (byte) 0x80;
-        byte highBit = 0;
-        byte modulo = (byte) 0x1b;
-
-        for (int i = 0; i < 8; i++) {
-            if ((b & 1) != 0) {
-                result ^= a;
-            }
-            highBit = (byte) (a & highBitMask);
-            a <<= 1;
-            if (highBit != 0) {
-                a ^= modulo;
+    // Expande a chave em 44 palavras de 32 bits (big-endian), calculadas uma única vez por instância
+    private static int[] keyExpansion(byte[] key) {
+        int[] w = new int[Nb * (Nr + 1)];
+
+        for (int i = 0; i < Nk; i++) {
+            w[i] = (key[4 * i] & 0xFF) << 24 | (key[4 * i + 1] & 0xFF) << 16
+                    | (key[4 * i + 2] & 0xFF) << 8 | (key[4 * i + 3] & 0xFF);
+        }
+
+        for (int i = Nk; i < w.length; i++) {
+            int temp = w[i - 1];
+            if (i % Nk == 0) {
+                temp = subWord(Integer.rotateLeft(temp, 8)) ^ rCon[i / Nk];
             }
-            b >>= 1;
+            w[i] = w[i - Nk] ^ temp;
         }
-        return result;
+
+        return w;
     }
 
-    private void addRoundKey(byte[][] state, byte[][] roundKey) {
-        for (int i = 0; i < 4; i++) {
-            for (int j = 0; j < Nb; j++) {
-                state[i][j] ^= roundKey[i][j];
+    // Chaves da cifra inversa equivalente: rodadas em ordem reversa e InvMixColumns nas intermediárias
+    private static int[] inverseKeyExpansion(int[] w) {
+        int[] dw = new int[w.length];
+        for (int round = 0; round <= Nr; round++) {
+            for (int c = 0; c < Nb; c++) {
+                int word = w[(Nr - round) * Nb + c];
+                dw[round * Nb + c] = (round == 0 || round == Nr) ? word : invMixColumn(word);
             }
         }
+        return dw;
     }
 
-    private byte[] rotateWord(byte[] word) {
-        byte temp = word[0];
-        for (int i = 0; i < 3; i++) {
-            word[i] = word[i + 1];
+    private static int invMixColumn(int word) {
+        int a0 = word >>> 24, a1 = (word >>> 16) & 0xFF, a2 = (word >>> 8) & 0xFF, a3 = word & 0xFF;
+        return (gfMul(a0, 0x0e) ^ gfMul(a1, 0x0b) ^ gfMul(a2, 0x0d) ^ gfMul(a3, 0x09)) << 24
+                | (gfMul(a0, 0x09) ^ gfMul(a1, 0x0e) ^ gfMul(a2, 0x0b) ^ gfMul(a3, 0x0d)) << 16
+                | (gfMul(a0, 0x0d) ^ gfMul(a1, 0x09) ^ gfMul(a2, 0x0e) ^ gfMul(a3, 0x0b)) << 8
+                | (gfMul(a0, 0x0b) ^ gfMul(a1, 0x0d) ^ gfMul(a2, 0x09) ^ gfMul(a3, 0x0e));
+    }
+
+    // Multiplicação em GF(2^8) usada na montagem de tabelas e do escalonamento inverso
+    static int gfMul(int a, int b) {
+        int result = 0;
+        while (b != 0) {
+            if ((b & 1) != 0) {
+                result ^= a;
+            }
+            a = (a & 0x80) != 0 ? ((a << 1) ^ 0x11b) : (a << 1);
+            b >>>= 1;
         }
-        word[3] = temp;
-        return word;
+        return result;
     }
 
-    private byte[] subWord(byte[] word) {
-        for (int i = 0; i < 4; i++) {
-            word[i] = sBoxTransform(word[i]);
+    static byte[] pad(byte[] data) {
+        int paddingLength = 16 - (data.length % 16);
+        byte[] paddedData = new byte[data.length + paddingLength];
+        System.arraycopy(data, 0, paddedData, 0, data.length);
+
+        for (int i = data.length; i < paddedData.length; i++) {
+            paddedData[i] = (byte) paddingLength;
         }
-        return word;
+
+        return paddedData;
     }
 
-    private byte rCon(int round) {
-        byte[] rCon = {
-                (byte) 0x8d, (byte) 0x01, (byte) 0x02, (byte) 0x04, (byte) 0x08,
-                (byte) 0x10, (byte) 0x20, (byte) 0x40, (byte) 0x80, (byte) 0x1b, (byte) 0x36
-        };
-        return rCon[round];
+    private static int subWord(int word) {
+        return (sBox[word >>> 24] & 0xFF) << 24 | (sBox[(word >>> 16) & 0xFF] & 0xFF) << 16
+                | (sBox[(word >>> 8) & 0xFF] & 0xFF) << 8 | (sBox[word & 0xFF] & 0xFF);
     }
 
-    private static final byte[] sBox = {
+    private static final int[] rCon = {
+            0x8d000000, 0x01000000, 0x02000000, 0x04000000, 0x08000000,
+            0x10000000, 0x20000000, 0x40000000, 0x80000000, 0x1b000000, 0x36000000
+    };
+
+    static final byte[] sBox = {
             (byte) 0x63, (byte) 0x7c, (byte) 0x77, (byte) 0x7b, (byte) 0xf2, (byte) 0x6b, (byte) 0x6f, (byte) 0xc5,
             (byte) 0x30, (byte) 0x01, (byte) 0x67, (byte) 0x2b, (byte) 0xfe, (byte) 0xd7, (byte) 0xab, (byte) 0x76,
             (byte) 0xca, (byte) 0x82, (byte) 0xc9, (byte) 0x7d, (byte) 0xfa, (byte) 0x59, (byte) 0x47, (byte) 0xf0,
@@ -348,8 +552,12 @@ public class AES128 {
             (byte) 0x41, (byte) 0x99, (byte) 0x2d, (byte) 0x0f, (byte) 0xb0, (byte) 0x54, (byte) 0xbb, (byte) 0x16
     };
 
-    private byte sBoxTransform(byte in) {
-        return sBox[in & 0xFF];
+    static final byte[] invSBox = new byte[256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            invSBox[sBox[i] & 0xFF] = (byte) i;
+        }
     }
 
     public byte[] addPadding(byte[] data) {
@@ -360,11 +568,7 @@ public class AES128 {
     }
 
     public byte[] removePadding(byte[] data) {
-        int paddingLength = data[data.length - 1];
-        if (paddingLength > data.length) {
-            throw new IllegalArgumentException("Padding length is greater than data length.");
-        }
-        return Arrays.copyOf(data, data.length - paddingLength);
+        return Arrays.copyOf(data, unpaddedLength(data, 0, data.length));
     }
 
 }
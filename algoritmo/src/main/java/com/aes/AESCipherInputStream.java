@@ -0,0 +1,135 @@
+package com.aes;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+// Decifra AES-128/CBC com padding PKCS#7 enquanto lê, com um buffer de tamanho fixo. O último bloco
+// decifrado fica retido até se saber que é o final do stream, quando o padding é removido.
+public class AESCipherInputStream extends FilterInputStream {
+    static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private final AES128 aes;
+    private final byte[] chain;
+    private final byte[] nextChain = new byte[16];
+    private final byte[] scratch = new byte[AES128.SCRATCH_SIZE];
+    private final byte[] buffer;
+    private int pos;
+    private int avail;
+    private int end;
+    private boolean finished;
+
+    public AESCipherInputStream(InputStream in, AES128 aes, byte[] iv) {
+        this(in, aes, iv, DEFAULT_BUFFER_SIZE);
+    }
+
+    public AESCipherInputStream(InputStream in, AES128 aes, byte[] iv, int bufferSize) {
+        super(in);
+        if (iv.length != 16) {
+            throw new IllegalArgumentException("IV deve ter 128 bits (16 bytes)");
+        }
+        if (bufferSize < 32 || bufferSize % 16 != 0) {
+            throw new IllegalArgumentException("O buffer deve ser um múltiplo de 16 bytes com ao menos 32");
+        }
+        this.aes = aes;
+        this.chain = iv.clone();
+        this.buffer = new byte[bufferSize];
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return buffer[pos++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        int n = Math.min(len, avail - pos);
+        System.arraycopy(buffer, pos, b, off, n);
+        pos += n;
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return avail - pos;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = 0;
+        while (skipped < n && fill()) {
+            int step = (int) Math.min(n - skipped, avail - pos);
+            pos += step;
+            skipped += step;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    // Garante texto claro disponível em [pos, avail); retorna false no fim do stream
+    private boolean fill() throws IOException {
+        while (pos == avail) {
+            if (finished) {
+                return false;
+            }
+            System.arraycopy(buffer, avail, buffer, 0, end - avail);
+            end -= avail;
+            pos = 0;
+            avail = 0;
+
+            int n = in.read(buffer, end, buffer.length - end);
+            if (n < 0) {
+                finish();
+            } else {
+                end += n;
+                // Decifra todos os blocos completos menos o último, que pode conter o padding
+                int blocks = end / 16 - 1;
+                if (blocks > 0) {
+                    avail = decrypt(blocks * 16);
+                }
+            }
+        }
+        return true;
+    }
+
+    private void finish() throws IOException {
+        finished = true;
+        if (end == 0 && avail == 0) {
+            throw new IOException("Stream cifrado vazio ou truncado");
+        }
+        if (end % 16 != 0) {
+            throw new IOException("Stream cifrado truncado: tamanho não é múltiplo de 16 bytes");
+        }
+        int n = decrypt(end);
+        int paddingLength = buffer[n - 1] & 0xFF;
+        if (paddingLength < 1 || paddingLength > 16) {
+            throw new IOException("Padding inválido");
+        }
+        for (int i = n - paddingLength; i < n; i++) {
+            if (buffer[i] != (byte) paddingLength) {
+                throw new IOException("Padding inválido");
+            }
+        }
+        avail = n - paddingLength;
+    }
+
+    private int decrypt(int n) {
+        System.arraycopy(buffer, n - 16, nextChain, 0, 16);
+        aes.decryptCBC(chain, buffer, 0, n, buffer, 0, scratch);
+        System.arraycopy(nextChain, 0, chain, 0, 16);
+        return n;
+    }
+}
@@ -0,0 +1,101 @@
+package com.aes;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+// Cifra em AES-128/CBC com padding PKCS#7 enquanto escreve. Usa um único buffer de tamanho fixo:
+// cada vez que ele enche, é cifrado no lugar e repassado; o bloco final com padding sai no close().
+public class AESCipherOutputStream extends FilterOutputStream {
+    static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private final AES128 aes;
+    private final byte[] chain;
+    private final byte[] buffer;
+    private int count;
+    private boolean closed;
+
+    public AESCipherOutputStream(OutputStream out, AES128 aes, byte[] iv) {
+        this(out, aes, iv, DEFAULT_BUFFER_SIZE);
+    }
+
+    public AESCipherOutputStream(OutputStream out, AES128 aes, byte[] iv, int bufferSize) {
+        super(out);
+        if (iv.length != 16) {
+            throw new IllegalArgumentException("IV deve ter 128 bits (16 bytes)");
+        }
+        if (bufferSize < 16 || bufferSize % 16 != 0) {
+            throw new IllegalArgumentException("O buffer deve ser um múltiplo positivo de 16 bytes");
+        }
+        this.aes = aes;
+        this.chain = iv.clone();
+        this.buffer = new byte[bufferSize];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        buffer[count++] = (byte) b;
+        if (count == buffer.length) {
+            emit(count);
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        while (len > 0) {
+            int n = Math.min(len, buffer.length - count);
+            System.arraycopy(b, off, buffer, count, n);
+            count += n;
+            off += n;
+            len -= n;
+            if (count == buffer.length) {
+                emit(count);
+            }
+        }
+    }
+
+    // Só blocos completos podem sair antes do fim; o resto espera mais dados ou o close()
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        emit(count & ~15);
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            int paddingLength = 16 - (count % 16);
+            for (int i = 0; i < paddingLength; i++) {
+                buffer[count++] = (byte) paddingLength;
+            }
+            emit(count);
+            out.flush();
+        } finally {
+            out.close();
+        }
+    }
+
+    private void emit(int n) throws IOException {
+        if (n == 0) {
+            return;
+        }
+        aes.encryptCBC(chain, buffer, 0, n, buffer, 0);
+        System.arraycopy(buffer, n - 16, chain, 0, 16);
+        out.write(buffer, 0, n);
+        System.arraycopy(buffer, n, buffer, 0, count - n);
+        count -= n;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream fechado");
+        }
+    }
+}
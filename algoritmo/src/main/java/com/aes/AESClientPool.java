@@ -0,0 +1,121 @@
+package com.aes;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+// Cliente reutilizável: mantém conexões persistentes com um ou mais servidores e distribui as
+// requisições entre elas em rodízio. Conexões que caem são refeitas na próxima requisição. Sem chave
+// fixa, cada conexão negocia sua sessão e, ao reconectar, tenta retomá-la sem novo acordo de chaves.
+public class AESClientPool implements Closeable {
+    private final AES128 aes;
+    private final InetSocketAddress[] slotServers;
+    private final AtomicReferenceArray<AESConnection> connections;
+    private final AESSession[] sessions;
+    private final Object[] locks;
+    private final AtomicInteger next = new AtomicInteger();
+    private volatile boolean closed;
+
+    public AESClientPool(String host, int port, int connections) {
+        this(null, host, port, connections);
+    }
+
+    public AESClientPool(List<InetSocketAddress> servers, int connectionsPerServer) {
+        this(null, servers, connectionsPerServer);
+    }
+
+    public AESClientPool(AES128 aes, String host, int port, int connections) {
+        this(aes, List.of(new InetSocketAddress(host, port)), connections);
+    }
+
+    public AESClientPool(AES128 aes, List<InetSocketAddress> servers, int connectionsPerServer) {
+        if (servers.isEmpty() || connectionsPerServer <= 0) {
+            throw new IllegalArgumentException("É preciso ao menos um servidor e uma conexão por servidor");
+        }
+        this.aes = aes;
+        int size = servers.size() * connectionsPerServer;
+        this.slotServers = new InetSocketAddress[size];
+        this.connections = new AtomicReferenceArray<>(size);
+        this.sessions = new AESSession[size];
+        this.locks = new Object[size];
+        for (int i = 0; i < size; i++) {
+            slotServers[i] = servers.get(i % servers.size());
+            locks[i] = new Object();
+        }
+    }
+
+    public CompletableFuture<byte[]> send(byte[] plaintext) {
+        return route(connection -> connection.send(plaintext));
+    }
+
+    public CompletableFuture<List<byte[]>> sendBatch(List<byte[]> plaintexts) {
+        return route(connection -> connection.sendBatch(plaintexts));
+    }
+
+    private <T> CompletableFuture<T> route(Function<AESConnection, CompletableFuture<T>> request) {
+        int start = Math.floorMod(next.getAndIncrement(), connections.length());
+        IOException failure = null;
+        // Se o servidor do slot estiver fora, tenta os demais antes de desistir
+        for (int i = 0; i < connections.length(); i++) {
+            try {
+                return request.apply(connection((start + i) % connections.length()));
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        return CompletableFuture.failedFuture(failure);
+    }
+
+    private AESConnection connection(int slot) throws IOException {
+        AESConnection connection = connections.get(slot);
+        if (connection != null && connection.isOpen()) {
+            return connection;
+        }
+        synchronized (locks[slot]) {
+            if (closed) {
+                throw new IOException("Pool fechado");
+            }
+            connection = connections.get(slot);
+            if (connection == null || !connection.isOpen()) {
+                InetSocketAddress server = slotServers[slot];
+                if (aes != null) {
+                    connection = new AESConnection(aes, server.getHostString(), server.getPort());
+                } else {
+                    connection = new AESConnection(server.getHostString(), server.getPort(), sessions[slot]);
+                    sessions[slot] = connection.getSession();
+                }
+                connections.set(slot, connection);
+            }
+            return connection;
+        }
+    }
+
+    public int getOpenConnections() {
+        int open = 0;
+        for (int slot = 0; slot < connections.length(); slot++) {
+            AESConnection connection = connections.get(slot);
+            if (connection != null && connection.isOpen()) {
+                open++;
+            }
+        }
+        return open;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        for (int slot = 0; slot < connections.length(); slot++) {
+            synchronized (locks[slot]) {
+                AESConnection connection = connections.getAndSet(slot, null);
+                if (connection != null) {
+                    connection.close();
+                }
+            }
+        }
+    }
+}
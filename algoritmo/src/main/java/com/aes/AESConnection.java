@@ -0,0 +1,220 @@
+package com.aes;
+
+import java.io.*;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+// Conexão persistente com o servidor. Cada requisição recebe um id e vira um quadro; uma thread
+// leitora casa as respostas pelo id, então várias requisições podem estar em andamento ao mesmo tempo.
+// As escritas passam por uma fila: a thread escritora grava tudo o que estiver acumulado e faz um
+// único flush, juntando requisições pequenas de várias threads no mesmo segmento TCP.
+public class AESConnection implements Closeable {
+    // Buffers de leitura compartilhados entre as conexões do processo
+    private static final BufferPool BUFFERS = new BufferPool(64 * 1024, 64, false);
+
+    private final AES128 aes;
+    private final AESGCM gcm;
+    private final AESSession session;
+    private final Socket socket;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+    private final Map<Integer, Pending> pending = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger();
+    private final BlockingQueue<Outgoing> outgoing = new LinkedBlockingQueue<>();
+    private final Thread reader;
+    private final Thread writer;
+    private volatile boolean closed;
+
+    // Usa a chave fixa informada, sem handshake
+    public AESConnection(AES128 aes, String host, int port) throws IOException {
+        this(host, port, aes, null, false);
+    }
+
+    // Negocia uma chave de sessão com o servidor, retomando previous quando possível (ver AESHandshake)
+    public AESConnection(String host, int port, AESSession previous) throws IOException {
+        this(host, port, null, previous, true);
+    }
+
+    private AESConnection(String host, int port, AES128 aes, AESSession previous, boolean negotiate)
+            throws IOException {
+        this.socket = new Socket(host, port);
+        socket.setTcpNoDelay(true);
+        this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 64 * 1024));
+        if (negotiate) {
+            try {
+                this.session = AESHandshake.negotiate(in, out, previous);
+            } catch (IOException e) {
+                socket.close();
+                throw e;
+            }
+            this.aes = session.aes();
+        } else {
+            this.session = null;
+            this.aes = aes;
+        }
+        this.gcm = new AESGCM(this.aes);
+        this.reader = new Thread(this::readResponses, "aes-cliente-leitor");
+        reader.setDaemon(true);
+        this.writer = new Thread(this::writeRequests, "aes-cliente-escritor");
+        writer.setDaemon(true);
+        reader.start();
+        writer.start();
+    }
+
+    private record Outgoing(byte type, int id, byte[] body) {
+    }
+
+    // A resposta tem de vir com o mesmo tipo da requisição, ou ERROR
+    private record Pending(byte type, CompletableFuture<byte[]> response) {
+    }
+
+    // Cifra e envia sem esperar pela resposta; o future completa com a resposta já decifrada
+    public CompletableFuture<byte[]> send(byte[] plaintext) {
+        return submit(AESProtocol.TYPE_MESSAGE, id -> aes.encrypt(plaintext));
+    }
+
+    // Como send, mas em AES-GCM: requisição e resposta são autenticadas (ver AESProtocol.seal)
+    public CompletableFuture<byte[]> sendSealed(byte[] plaintext) {
+        return submit(AESProtocol.TYPE_SEALED, id -> AESProtocol.seal(gcm, false, id, plaintext));
+    }
+
+    // Várias mensagens num único quadro BATCH: uma chamada ao cifrador, uma escrita e uma resposta para o
+    // lote todo. As respostas vêm na ordem das mensagens.
+    public CompletableFuture<List<byte[]>> sendBatch(List<byte[]> plaintexts) {
+        byte[] body = AESProtocol.batch(aes, plaintexts);
+        return submit(AESProtocol.TYPE_BATCH, id -> body)
+                .thenApply(response -> AESProtocol.openBatch(aes, response, response.length));
+    }
+
+    // O corpo é montado antes de o id entrar em pending: se a montagem lança, a exceção vai para quem
+    // chamou e nenhum future fica sem resposta
+    private CompletableFuture<byte[]> submit(byte type, IntFunction<byte[]> request) {
+        int id = nextId.incrementAndGet();
+        byte[] body = request.apply(id);
+        CompletableFuture<byte[]> response = new CompletableFuture<>();
+        pending.put(id, new Pending(type, response));
+        if (closed) {
+            pending.remove(id);
+            response.completeExceptionally(new IOException("Conexão fechada"));
+            return response;
+        }
+        outgoing.add(new Outgoing(type, id, body));
+        return response;
+    }
+
+    // Sessão negociada, para retomar numa próxima conexão; null quando a chave é fixa
+    public AESSession getSession() {
+        return session;
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    public boolean isOpen() {
+        return !closed && !socket.isClosed();
+    }
+
+    private void writeRequests() {
+        List<Outgoing> batch = new ArrayList<>();
+        try {
+            while (!closed) {
+                batch.add(outgoing.take());
+                outgoing.drainTo(batch);
+                for (Outgoing request : batch) {
+                    AESProtocol.writeFrame(out, request.type(), request.id(), request.body());
+                }
+                out.flush();
+                batch.clear();
+            }
+        } catch (IOException e) {
+            closeQuietly();
+            failPending(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void readResponses() {
+        IOException failure = null;
+        // Cada resposta é lida e decifrada no buffer do pool; só o texto claro entregue ao future é alocado
+        ByteBuffer buffer = BUFFERS.acquire();
+        AESProtocol.FrameReader frame = new AESProtocol.FrameReader(buffer.array());
+        AESProtocol.Sealer sealer = new AESProtocol.Sealer(gcm);
+        try {
+            while (frame.read(in)) {
+                if (frame.refused()) {
+                    throw new IOException("Quadro de resposta acima de " + AESProtocol.MAX_FRAME_LENGTH + " bytes");
+                }
+                Pending request = pending.remove(frame.id());
+                if (request == null) {
+                    continue;
+                }
+                CompletableFuture<byte[]> response = request.response();
+                byte[] body = frame.body();
+                try {
+                    if (frame.type() == AESProtocol.TYPE_ERROR) {
+                        response.completeExceptionally(
+                                new IOException("Servidor recusou a requisição " + frame.id()));
+                    } else if (frame.type() != request.type()) {
+                        response.completeExceptionally(new IOException("Resposta de tipo " + frame.type()
+                                + " para a requisição " + frame.id() + " de tipo " + request.type()));
+                    } else if (frame.type() == AESProtocol.TYPE_MESSAGE) {
+                        response.complete(Arrays.copyOf(body, aes.decryptPadded(body, 0, frame.length(), body, 0)));
+                    } else if (frame.type() == AESProtocol.TYPE_SEALED) {
+                        int length = sealer.open(true, frame.id(), body, frame.length());
+                        response.complete(Arrays.copyOfRange(body, AESGCM.IV_SIZE, AESGCM.IV_SIZE + length));
+                    } else {
+                        // BATCH: decifrado por sendBatch, fora do buffer compartilhado
+                        response.complete(Arrays.copyOf(body, frame.length()));
+                    }
+                } catch (IllegalArgumentException e) {
+                    response.completeExceptionally(e);
+                }
+            }
+        } catch (IOException e) {
+            failure = e;
+        } finally {
+            BUFFERS.release(buffer);
+        }
+        closeQuietly();
+        writer.interrupt();
+        failPending(failure != null ? failure : new EOFException("Conexão encerrada pelo servidor"));
+    }
+
+    private void failPending(IOException cause) {
+        closed = true;
+        for (Integer id : pending.keySet()) {
+            Pending request = pending.remove(id);
+            if (request != null) {
+                request.response().completeExceptionally(cause);
+            }
+        }
+    }
+
+    private void closeQuietly() {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        writer.interrupt();
+        socket.close();
+        failPending(new IOException("Conexão fechada"));
+    }
+}
@@ -0,0 +1,64 @@
+package com.aes;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Cifra arquivos em AES-128/CTR mapeando origem e destino em janelas (FileChannel.map) e aplicando a
+// keystream direto nos MappedByteBuffers: o heap usado não depende do tamanho do arquivo e nada é
+// copiado para byte[]. CTR preserva o tamanho e cifrar de novo com o mesmo IV decifra.
+public class AESFileEncryptor {
+    static final int DEFAULT_REGION_SIZE = 64 * 1024 * 1024;
+
+    private final AES128 aes;
+    private final int regionSize;
+
+    public AESFileEncryptor(AES128 aes) {
+        this(aes, DEFAULT_REGION_SIZE);
+    }
+
+    public AESFileEncryptor(AES128 aes, int regionSize) {
+        if (regionSize <= 0 || regionSize % 16 != 0) {
+            throw new IllegalArgumentException("A janela deve ser um múltiplo positivo de 16 bytes");
+        }
+        this.aes = aes;
+        this.regionSize = regionSize;
+    }
+
+    public void encrypt(byte[] iv, Path source, Path target) throws IOException {
+        process(iv, source, target);
+    }
+
+    public void decrypt(byte[] iv, Path source, Path target) throws IOException {
+        process(iv, source, target);
+    }
+
+    // O destino é truncado antes de a origem ser lida: o mesmo arquivo (ou um link para ele) nos dois
+    // papéis apagaria a entrada
+    private void process(byte[] iv, Path source, Path target) throws IOException {
+        if (Files.exists(target) && Files.isSameFile(source, target)) {
+            throw new IllegalArgumentException("Origem e destino são o mesmo arquivo: " + target);
+        }
+        byte[] scratch = new byte[AES128.SCRATCH_SIZE];
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+                FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long size = in.size();
+            // Estende o destino até o tamanho final para poder mapeá-lo em modo leitura/escrita
+            if (size > 0) {
+                out.write(ByteBuffer.allocate(1), size - 1);
+            }
+            for (long position = 0; position < size; position += regionSize) {
+                int len = (int) Math.min(regionSize, size - position);
+                MappedByteBuffer src = in.map(FileChannel.MapMode.READ_ONLY, position, len);
+                MappedByteBuffer dst = out.map(FileChannel.MapMode.READ_WRITE, position, len);
+                aes.processCTR(iv, position / 16, src, 0, len, dst, 0, scratch);
+                dst.force();
+            }
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package com.aes;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Objects;
+
+// AES-128/GCM (NIST SP 800-38D) sobre a função de bloco do AES128. Cifra e GHASH andam juntos em uma
+// única passada pelo buffer; o GHASH multiplica por H com tabelas de 8 bits (método de Shoup: múltiplos
+// de H por byte e redução por byte), 16 consultas por bloco em vez de 128 iterações bit a bit. A tag de
+// 16 bytes vai logo após o texto cifrado.
+public class AESGCM {
+    public static final int IV_SIZE = 12;
+    public static final int TAG_SIZE = 16;
+    // Contadores e keystream de 4 blocos (64 + 64 bytes), E(J0) para a tag e o acumulador do GHASH (16 + 16)
+    public static final int SCRATCH_SIZE = 160;
+
+    private static final int Y = 144;
+
+    private static final int BATCH = 4;
+
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    // Redução módulo x^128 + x^7 + x^2 + x + 1 do byte que sai à direita a cada deslocamento de 8 bits
+    private static final long[] LAST8 = new long[256];
+
+    static {
+        for (int r = 0; r < 256; r++) {
+            long vh = 0, vl = r;
+            for (int i = 0; i < 8; i++) {
+                long t = vl & 1;
+                vl = (vh << 63) | (vl >>> 1);
+                vh = (vh >>> 1) ^ (t * 0xE100000000000000L);
+            }
+            LAST8[r] = vh;
+        }
+    }
+
+    private final AES128 aes;
+    // hh[b]:hl[b] = b·H para os 256 valores de um byte (o bit 0x80 é o coeficiente de x^0)
+    private final long[] hh = new long[256];
+    private final long[] hl = new long[256];
+
+    public AESGCM(AES128 aes) {
+        this.aes = aes;
+        byte[] h = new byte[16];
+        aes.encryptBlock(h, 0, h, 0);
+        long vh = getLong(h, 0);
+        long vl = getLong(h, 8);
+
+        hh[128] = vh;
+        hl[128] = vl;
+        for (int i = 64; i > 0; i >>= 1) {
+            long t = vl & 1;
+            vl = (vh << 63) | (vl >>> 1);
+            vh = (vh >>> 1) ^ (t * 0xE100000000000000L);
+            hh[i] = vh;
+            hl[i] = vl;
+        }
+        for (int i = 2; i <= 128; i *= 2) {
+            for (int j = 1; j < i; j++) {
+                hh[i + j] = hh[i] ^ hh[j];
+                hl[i + j] = hl[i] ^ hl[j];
+            }
+        }
+    }
+
+    public byte[] encrypt(byte[] iv, byte[] aad, byte[] plaintext) {
+        byte[] out = new byte[plaintext.length + TAG_SIZE];
+        encrypt(iv, aad, plaintext, 0, plaintext.length, out, 0, new byte[SCRATCH_SIZE]);
+        return out;
+    }
+
+    public byte[] decrypt(byte[] iv, byte[] aad, byte[] ciphertext) {
+        if (ciphertext.length < TAG_SIZE) {
+            throw new IllegalArgumentException("A entrada deve conter ao menos a tag de 16 bytes");
+        }
+        byte[] out = new byte[ciphertext.length - TAG_SIZE];
+        decrypt(iv, aad, ciphertext, 0, ciphertext.length, out, 0, new byte[SCRATCH_SIZE]);
+        return out;
+    }
+
+    // Escreve len bytes cifrados seguidos da tag em out; aceita in == out no mesmo offset
+    public void encrypt(byte[] iv, byte[] aad, byte[] in, int inOff, int len, byte[] out, int outOff,
+            byte[] scratch) {
+        Objects.checkFromIndexSize(inOff, len, in.length);
+        Objects.checkFromIndexSize(outOff, len + TAG_SIZE, out.length);
+        checkScratch(scratch);
+        start(iv, aad, scratch);
+
+        for (int i = 0; i < len; i += 16 * BATCH) {
+            int n = Math.min(16 * BATCH, len - i);
+            keystream(scratch, (n + 15) / 16);
+            for (int b = 0; b < n; b += 16) {
+                int m = Math.min(16, n - b);
+                int p = inOff + i + b;
+                int o = outOff + i + b;
+                if (m == 16) {
+                    // Bloco inteiro: XOR da keystream e GHASH em palavras de 64 bits
+                    long c0 = getLong(in, p) ^ getLong(scratch, 64 + b);
+                    long c1 = getLong(in, p + 8) ^ getLong(scratch, 72 + b);
+                    putLong(out, o, c0);
+                    putLong(out, o + 8, c1);
+                    absorb(scratch, c0, c1);
+                } else {
+                    for (int j = 0; j < m; j++) {
+                        out[o + j] = (byte) (in[p + j] ^ scratch[64 + b + j]);
+                    }
+                    ghash(scratch, out, o, m);
+                }
+            }
+        }
+
+        finish(aad == null ? 0 : aad.length, len, scratch);
+        System.arraycopy(scratch, Y, out, outOff + len, TAG_SIZE);
+    }
+
+    // len inclui a tag; devolve o tamanho do texto claro. Com tag inválida a saída é zerada e nada é
+    // devolvido ao chamador além da exceção.
+    public int decrypt(byte[] iv, byte[] aad, byte[] in, int inOff, int len, byte[] out, int outOff,
+            byte[] scratch) {
+        if (len < TAG_SIZE) {
+            throw new IllegalArgumentException("A entrada deve conter ao menos a tag de 16 bytes");
+        }
+        int dataLen = len - TAG_SIZE;
+        Objects.checkFromIndexSize(inOff, len, in.length);
+        Objects.checkFromIndexSize(outOff, dataLen, out.length);
+        checkScratch(scratch);
+        start(iv, aad, scratch);
+
+        // A tag é lida antes: com in == out, a decifração em seguida pode sobrescrevê-la
+        long tagHi = getLong(in, inOff + dataLen);
+        long tagLo = getLong(in, inOff + dataLen + 8);
+
+        for (int i = 0; i < dataLen; i += 16 * BATCH) {
+            int n = Math.min(16 * BATCH, dataLen - i);
+            keystream(scratch, (n + 15) / 16);
+            for (int b = 0; b < n; b += 16) {
+                int m = Math.min(16, n - b);
+                int p = inOff + i + b;
+                int o = outOff + i + b;
+                if (m == 16) {
+                    long c0 = getLong(in, p);
+                    long c1 = getLong(in, p + 8);
+                    absorb(scratch, c0, c1);
+                    putLong(out, o, c0 ^ getLong(scratch, 64 + b));
+                    putLong(out, o + 8, c1 ^ getLong(scratch, 72 + b));
+                } else {
+                    ghash(scratch, in, p, m);
+                    for (int j = 0; j < m; j++) {
+                        out[o + j] = (byte) (in[p + j] ^ scratch[64 + b + j]);
+                    }
+                }
+            }
+        }
+
+        finish(aad == null ? 0 : aad.length, dataLen, scratch);
+        if (((getLong(scratch, Y) ^ tagHi) | (getLong(scratch, Y + 8) ^ tagLo)) != 0) {
+            Arrays.fill(out, outOff, outOff + dataLen, (byte) 0);
+            throw new IllegalArgumentException("Tag de autenticação inválida");
+        }
+        return dataLen;
+    }
+
+    // Monta J0 em scratch[0..16), guarda E(J0) em scratch[128..144), deixa o contador em inc32(J0) e
+    // processa o AAD
+    private void start(byte[] iv, byte[] aad, byte[] scratch) {
+        putLong(scratch, Y, 0);
+        putLong(scratch, Y + 8, 0);
+        if (iv.length == IV_SIZE) {
+            System.arraycopy(iv, 0, scratch, 0, IV_SIZE);
+            scratch[12] = 0;
+            scratch[13] = 0;
+            scratch[14] = 0;
+            scratch[15] = 1;
+        } else {
+            if (iv.length == 0) {
+                throw new IllegalArgumentException("IV não pode ser vazio");
+            }
+            ghash(scratch, iv, 0, iv.length);
+            absorb(scratch, 0, (long) iv.length * 8);
+            System.arraycopy(scratch, Y, scratch, 0, 16);
+            putLong(scratch, Y, 0);
+            putLong(scratch, Y + 8, 0);
+        }
+        aes.encryptBlock(scratch, 0, scratch, 128);
+        inc32(scratch, 0);
+        if (aad != null) {
+            ghash(scratch, aad, 0, aad.length);
+        }
+    }
+
+    // Deixa a tag em scratch[Y..Y+16)
+    private void finish(long aadLen, long dataLen, byte[] scratch) {
+        absorb(scratch, aadLen * 8, dataLen * 8);
+        putLong(scratch, Y, getLong(scratch, Y) ^ getLong(scratch, 128));
+        putLong(scratch, Y + 8, getLong(scratch, Y + 8) ^ getLong(scratch, 136));
+    }
+
+    // Cifra blocks contadores consecutivos (scratch[0..64) → scratch[64..128)) e avança o contador
+    private void keystream(byte[] scratch, int blocks) {
+        for (int b = 1; b < blocks; b++) {
+            System.arraycopy(scratch, 16 * (b - 1), scratch, 16 * b, 16);
+            inc32(scratch, 16 * b);
+        }
+        aes.encryptECB(scratch, 0, 16 * blocks, scratch, 64);
+        if (blocks > 1) {
+            System.arraycopy(scratch, 16 * (blocks - 1), scratch, 0, 16);
+        }
+        inc32(scratch, 0);
+    }
+
+    // Absorve len bytes em blocos de 16; o último bloco incompleto é completado com zeros
+    private void ghash(byte[] scratch, byte[] data, int off, int len) {
+        for (int i = 0; i < len; i += 16) {
+            int n = Math.min(16, len - i);
+            if (n == 16) {
+                absorb(scratch, getLong(data, off + i), getLong(data, off + i + 8));
+            } else {
+                long hi = 0, lo = 0;
+                for (int j = 0; j < n; j++) {
+                    long v = (data[off + i + j] & 0xFFL) << (56 - 8 * (j & 7));
+                    if (j < 8) {
+                        hi |= v;
+                    } else {
+                        lo |= v;
+                    }
+                }
+                absorb(scratch, hi, lo);
+            }
+        }
+    }
+
+    // Y = (Y ^ bloco)·H em GF(2^128), byte a byte do 15 ao 0; Y fica no scratch para não alocar estado
+    private void absorb(byte[] scratch, long blockHi, long blockLo) {
+        long xh = getLong(scratch, Y) ^ blockHi, xl = getLong(scratch, Y + 8) ^ blockLo;
+        int b = (int) xl & 0xFF;
+        long zh = hh[b];
+        long zl = hl[b];
+        for (int shift = 8; shift < 64; shift += 8) {
+            int rem = (int) zl & 0xFF;
+            zl = (zh << 56) | (zl >>> 8);
+            b = (int) (xl >>> shift) & 0xFF;
+            zh = (zh >>> 8) ^ LAST8[rem] ^ hh[b];
+            zl ^= hl[b];
+        }
+        for (int shift = 0; shift < 64; shift += 8) {
+            int rem = (int) zl & 0xFF;
+            zl = (zh << 56) | (zl >>> 8);
+            b = (int) (xh >>> shift) & 0xFF;
+            zh = (zh >>> 8) ^ LAST8[rem] ^ hh[b];
+            zl ^= hl[b];
+        }
+        putLong(scratch, Y, zh);
+        putLong(scratch, Y + 8, zl);
+    }
+
+    // Incrementa só os 32 bits finais do bloco contador, como pede o GCM
+    private static void inc32(byte[] counter, int off) {
+        for (int i = off + 15; i >= off + 12; i--) {
+            if (++counter[i] != 0) {
+                break;
+            }
+        }
+    }
+
+    private static void checkScratch(byte[] scratch) {
+        if (scratch.length < SCRATCH_SIZE) {
+            throw new IllegalArgumentException("Área de trabalho deve ter ao menos " + SCRATCH_SIZE + " bytes");
+        }
+    }
+
+    private static long getLong(byte[] b, int off) {
+        return (long) LONGS.get(b, off);
+    }
+
+    private static void putLong(byte[] b, int off, long v) {
+        LONGS.set(b, off, v);
+    }
+}
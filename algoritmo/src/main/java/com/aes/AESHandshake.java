@@ -0,0 +1,99 @@
+package com.aes;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.security.*;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Arrays;
+import javax.crypto.KeyAgreement;
+
+// Handshake de sessão sobre o AESProtocol; o cliente usa id 0 e, como em todo quadro, a resposta repete
+// o id. O acordo de chaves é X25519 (KeyAgreement do JDK) e a chave AES-128 da sessão são os 16 primeiros
+// bytes do SHA-256 do segredo compartilhado seguido das duas chaves públicas.
+//
+//   cliente  → HELLO   chave pública do cliente (X.509)
+//   servidor → HELLO   id da sessão (16 bytes) + chave pública do servidor (X.509)
+//
+//   cliente  → RESUME  id de uma sessão anterior
+//   servidor → RESUME  sessão retomada com a mesma chave, ou ERROR se o servidor já a descartou
+//
+// Conexões que não começam com handshake continuam usando a chave fixa do servidor.
+public final class AESHandshake {
+    public static final int SESSION_ID_SIZE = 16;
+
+    static final String ALGORITHM = "X25519";
+
+    private AESHandshake() {
+    }
+
+    // Lado cliente: tenta retomar a sessão anterior e, se o servidor recusar, faz o acordo completo
+    public static AESSession negotiate(DataInputStream in, DataOutputStream out, AESSession previous)
+            throws IOException {
+        if (previous != null) {
+            AESProtocol.writeFrame(out, AESProtocol.TYPE_RESUME, 0, previous.id());
+            out.flush();
+            if (readReply(in).type() == AESProtocol.TYPE_RESUME) {
+                return previous;
+            }
+        }
+
+        try {
+            KeyPair pair = generateKeyPair();
+            byte[] clientPublic = pair.getPublic().getEncoded();
+            AESProtocol.writeFrame(out, AESProtocol.TYPE_HELLO, 0, clientPublic);
+            out.flush();
+
+            AESProtocol.Frame reply = readReply(in);
+            byte[] body = reply.body();
+            if (reply.type() != AESProtocol.TYPE_HELLO || body.length <= SESSION_ID_SIZE) {
+                throw new IOException("Handshake recusado pelo servidor");
+            }
+            byte[] id = Arrays.copyOf(body, SESSION_ID_SIZE);
+            byte[] serverPublic = Arrays.copyOfRange(body, SESSION_ID_SIZE, body.length);
+            byte[] key = deriveKey(pair.getPrivate(), decodePublicKey(serverPublic), clientPublic, serverPublic);
+            try {
+                return new AESSession(id, new AES128(key));
+            } finally {
+                Arrays.fill(key, (byte) 0);
+            }
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Falha no acordo de chaves: " + e.getMessage(), e);
+        }
+    }
+
+    private static AESProtocol.Frame readReply(DataInputStream in) throws IOException {
+        AESProtocol.Frame reply = AESProtocol.readFrame(in);
+        if (reply == null) {
+            throw new EOFException("Conexão encerrada durante o handshake");
+        }
+        return reply;
+    }
+
+    static KeyPair generateKeyPair() throws GeneralSecurityException {
+        return KeyPairGenerator.getInstance(ALGORITHM).generateKeyPair();
+    }
+
+    static PublicKey decodePublicKey(byte[] encoded) throws GeneralSecurityException {
+        return KeyFactory.getInstance(ALGORITHM).generatePublic(new X509EncodedKeySpec(encoded));
+    }
+
+    static byte[] deriveKey(PrivateKey own, PublicKey peer, byte[] clientPublic, byte[] serverPublic)
+            throws GeneralSecurityException {
+        KeyAgreement agreement = KeyAgreement.getInstance(ALGORITHM);
+        agreement.init(own);
+        agreement.doPhase(peer, true);
+        byte[] shared = agreement.generateSecret();
+
+        MessageDigest sha = MessageDigest.getInstance("SHA-256");
+        sha.update(shared);
+        sha.update(clientPublic);
+        sha.update(serverPublic);
+        byte[] digest = sha.digest();
+        byte[] key = Arrays.copyOf(digest, 16);
+        Arrays.fill(shared, (byte) 0);
+        Arrays.fill(digest, (byte) 0);
+        return key;
+    }
+}
@@ -0,0 +1,180 @@
+package com.aes;
+
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Cache de instâncias de AES128 já expandidas, indexado pelos bytes da chave. Limitado em número de
+// entradas com despejo LRU. Quem usa uma instância a fixa com acquire e a solta com release; quando uma
+// entrada sai do cache (despejo, remove ou clear), a cópia da chave é zerada e o escalonamento é apagado
+// com AES128.destroy assim que a última fixação for solta.
+public class AESKeyCache {
+    private final int maxEntries;
+    private final AES128.Engine engine;
+    private final LinkedHashMap<CacheKey, Entry> entries;
+    // Entradas com fixações em aberto, pela instância entregue (dentro ou já fora do cache)
+    private final IdentityHashMap<AES128, Entry> pinned = new IdentityHashMap<>();
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public AESKeyCache(int maxEntries) {
+        this(maxEntries, AES128.Engine.DEFAULT);
+    }
+
+    public AESKeyCache(int maxEntries, AES128.Engine engine) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("O cache deve comportar ao menos uma chave");
+        }
+        this.maxEntries = maxEntries;
+        this.engine = engine;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CacheKey, Entry> eldest) {
+                if (size() <= AESKeyCache.this.maxEntries) {
+                    return false;
+                }
+                retire(eldest.getValue());
+                evictions++;
+                return true;
+            }
+        };
+    }
+
+    // Devolve a instância da chave já fixada; cada acquire pede um release. Na consulta a chave do chamador
+    // é só referenciada; a cópia é feita apenas ao inserir. A expansão de uma falta roda fora do lock, para
+    // não travar as consultas das outras chaves; se duas threads expandem a mesma chave ao mesmo tempo,
+    // fica a instância de quem inserir primeiro e a outra é apagada.
+    public AES128 acquire(byte[] key) {
+        if (key.length != 16) {
+            throw new IllegalArgumentException("Chave deve ter 128 bits (16 bytes)");
+        }
+        CacheKey lookup = new CacheKey(key);
+        synchronized (this) {
+            Entry entry = entries.get(lookup);
+            if (entry != null) {
+                hits++;
+                return pin(entry);
+            }
+            misses++;
+        }
+
+        AES128 aes = new AES128(key, engine);
+        CacheKey copy = new CacheKey(key.clone());
+        synchronized (this) {
+            Entry entry = entries.get(lookup);
+            if (entry != null) {
+                copy.wipe();
+                aes.destroy();
+                return pin(entry);
+            }
+            entry = new Entry(copy, aes);
+            entries.put(copy, entry);
+            return pin(entry);
+        }
+    }
+
+    public synchronized void release(AES128 aes) {
+        Entry entry = pinned.get(aes);
+        if (entry == null) {
+            throw new IllegalArgumentException("Instância não fixada neste cache");
+        }
+        if (--entry.pins == 0) {
+            pinned.remove(aes);
+            if (entry.retired) {
+                entry.aes.destroy();
+            }
+        }
+    }
+
+    public synchronized void remove(byte[] key) {
+        Entry entry = entries.remove(new CacheKey(key));
+        if (entry != null) {
+            retire(entry);
+        }
+    }
+
+    public synchronized void clear() {
+        for (Entry entry : entries.values()) {
+            retire(entry);
+        }
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    // Chamado com o lock
+    private AES128 pin(Entry entry) {
+        if (entry.pins++ == 0) {
+            pinned.put(entry.aes, entry);
+        }
+        return entry.aes;
+    }
+
+    // Chamado com o lock, quando a entrada sai do mapa
+    private void retire(Entry entry) {
+        entry.key.wipe();
+        entry.retired = true;
+        if (entry.pins == 0) {
+            entry.aes.destroy();
+        }
+    }
+
+    // Guarda a cópia da chave junto da instância para poder zerá-la ao remover por uma chave equivalente
+    private static final class Entry {
+        final CacheKey key;
+        final AES128 aes;
+        int pins;
+        boolean retired;
+
+        Entry(CacheKey key, AES128 aes) {
+            this.key = key;
+            this.aes = aes;
+        }
+    }
+
+    // Chave de mapa sobre byte[]: igualdade por conteúdo em tempo constante, nunca convertida em String
+    private static final class CacheKey {
+        private final byte[] key;
+        private final int hash;
+
+        CacheKey(byte[] key) {
+            this.key = key;
+            this.hash = Arrays.hashCode(key);
+        }
+
+        void wipe() {
+            Arrays.fill(key, (byte) 0);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof CacheKey other && hash == other.hash && MessageDigest.isEqual(key, other.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
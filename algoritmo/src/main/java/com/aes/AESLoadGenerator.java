@@ -0,0 +1,428 @@
+package com.aes;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Gerador de carga para os servidores. Cada conexão mantém depth requisições em voo (laço fechado: uma
+// nova sai quando outra volta) até o fim da duração e, a cada intervalo, é impressa uma linha com vazão,
+// percentis de latência, erros, conexões e heap/GC. A coluna retido (heap fora do eden: sobreviventes e
+// geração velha) é a que denuncia vazamento: num teste longo o seu piso deve se estabilizar.
+//
+// Com --role both servidor e clientes dividem a JVM. Para medir o heap do servidor isolado, rode
+// --role server num processo e --role client em outro, com a mesma --port. No papel server as colunas vêm
+// das métricas do servidor (AESMetrics) e a latência é a de decifração de cada quadro, não a de ida e volta.
+//
+//   java -cp target/classes com.aes.AESLoadGenerator --server THREAD --connections 64 --size 64 \
+//        --depth 16 --duration 300 --interval 10
+public class AESLoadGenerator {
+    // Mesma chave fixa do Main (exemplo do FIPS-197), para client e server em processos separados
+    static final byte[] DEFAULT_KEY = { (byte) 0x2b, (byte) 0x7e, (byte) 0x15, (byte) 0x16, (byte) 0x28, (byte) 0xae,
+            (byte) 0xd2, (byte) 0xa6, (byte) 0xab, (byte) 0xf7, (byte) 0xcf, (byte) 0x15, (byte) 0x88, (byte) 0x09,
+            (byte) 0xcf, (byte) 0x4f };
+
+    static final String USAGE = String.join("\n",
+            "Uso: java com.aes.AESLoadGenerator [opções]",
+            "  --role both|server|client   quem roda neste processo (padrão both)",
+            "  --server THREAD|NIO         servidor iniciado por both/server (padrão THREAD)",
+            "  --host HOST --port PORTA    destino dos clientes (padrão localhost 54321)",
+            "  --connections N             conexões de clientes (padrão 16)",
+            "  --size BYTES                tamanho de cada mensagem (padrão 64)",
+            "  --depth N                   requisições em voo por conexão (padrão 8)",
+            "  --type MESSAGE|SEALED|BATCH tipo de quadro (padrão MESSAGE)",
+            "  --batch N                   mensagens por quadro BATCH (padrão 64)",
+            "  --handshake                 cada conexão negocia sua chave (só THREAD)",
+            "  --duration SEGUNDOS         duração do teste (padrão 30)",
+            "  --interval SEGUNDOS         intervalo entre relatórios (padrão 5)");
+
+    record Options(String role, String server, String host, int port, int connections, int size, int depth,
+            String type, int batch, boolean handshake, int duration, int interval) {
+
+        static Options parse(String[] args) {
+            String role = "both", server = "THREAD", host = "localhost", type = "MESSAGE";
+            int port = 54321, connections = 16, size = 64, depth = 8, batch = 64, duration = 30, interval = 5;
+            boolean handshake = false;
+            for (int i = 0; i < args.length; i++) {
+                String option = args[i];
+                if (option.equals("--handshake")) {
+                    handshake = true;
+                    continue;
+                }
+                if (i + 1 == args.length) {
+                    throw new IllegalArgumentException("Falta o valor de " + option);
+                }
+                String value = args[++i];
+                switch (option) {
+                    case "--role" -> role = value.toLowerCase();
+                    case "--server" -> server = value.toUpperCase();
+                    case "--host" -> host = value;
+                    case "--port" -> port = parseInt(option, value, 1);
+                    case "--connections" -> connections = parseInt(option, value, 1);
+                    case "--size" -> size = parseInt(option, value, 0);
+                    case "--depth" -> depth = parseInt(option, value, 1);
+                    case "--type" -> type = value.toUpperCase();
+                    case "--batch" -> batch = parseInt(option, value, 1);
+                    case "--duration" -> duration = parseInt(option, value, 1);
+                    case "--interval" -> interval = parseInt(option, value, 1);
+                    default -> throw new IllegalArgumentException("Opção desconhecida: " + option);
+                }
+            }
+            if (!List.of("both", "server", "client").contains(role)) {
+                throw new IllegalArgumentException("Papel inválido: " + role);
+            }
+            if (!List.of("THREAD", "NIO").contains(server)) {
+                throw new IllegalArgumentException("Servidor inválido: " + server);
+            }
+            if (!List.of("MESSAGE", "SEALED", "BATCH").contains(type)) {
+                throw new IllegalArgumentException("Tipo de quadro inválido: " + type);
+            }
+            if (server.equals("NIO") && !role.equals("client") && (handshake || type.equals("BATCH"))) {
+                throw new IllegalArgumentException("O servidor NIO só atende MESSAGE e SEALED com chave fixa");
+            }
+            return new Options(role, server, host, port, connections, size, depth, type, batch, handshake,
+                    duration, interval);
+        }
+
+        private static int parseInt(String option, String value, int min) {
+            int parsed;
+            try {
+                parsed = Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Valor inválido para " + option + ": " + value);
+            }
+            if (parsed < min) {
+                throw new IllegalArgumentException(option + " deve ser ao menos " + min);
+            }
+            return parsed;
+        }
+    }
+
+    // Uma linha do relatório, vinda dos clientes ou, com --role server, das métricas do servidor
+    private record Sample(long messages, long bytes, LatencyHistogram.Snapshot latency, long errors,
+            long connections) {
+    }
+
+    private final Options options;
+    private final AES128 aes = new AES128(DEFAULT_KEY);
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LatencyHistogram totalLatency = new LatencyHistogram();
+    // Reenvia depois de uma falha fora da pilha de quem completou o future (ver next)
+    private final ExecutorService retries = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "aes-carga-reenvio");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final List<AESConnection> connections = Collections.synchronizedList(new ArrayList<>());
+    private AESTCPServer threadServer;
+    private AESNIOServer nioServer;
+
+    private AESLoadGenerator(Options options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+        new AESLoadGenerator(options).run();
+    }
+
+    private void run() throws Exception {
+        if (!options.role().equals("client")) {
+            startServer();
+        }
+        try {
+            if (options.role().equals("server")) {
+                serve();
+            } else {
+                drive();
+            }
+        } finally {
+            if (threadServer != null) {
+                threadServer.shutdown(5, TimeUnit.SECONDS);
+            }
+            if (nioServer != null) {
+                nioServer.shutdown();
+            }
+        }
+    }
+
+    private void startServer() {
+        if (options.server().equals("NIO")) {
+            nioServer = new AESNIOServer(aes, options.port());
+            nioServer.start();
+        } else {
+            threadServer = new AESTCPServer(aes, options.port(), Math.max(AESTCPServer.DEFAULT_MAX_CONNECTIONS,
+                    options.connections()));
+            threadServer.start();
+        }
+    }
+
+    private AESMetrics serverMetrics() {
+        if (threadServer != null) {
+            return threadServer.getMetrics();
+        }
+        return nioServer != null ? nioServer.getMetrics() : null;
+    }
+
+    // Só servidor: relata o que ele decifrou em cada intervalo até acabar a duração
+    private void serve() throws InterruptedException {
+        AESMetrics metrics = serverMetrics();
+        Report report = new Report();
+        // A latência de cada intervalo sai de uma janela local: zerar os histogramas do servidor apagaria
+        // o que o JMX mostra
+        LatencyHistogram.Window latency = metrics.decryptLatencyWindow();
+        long previousMessages = 0, previousBytes = 0, previousErrors = 0;
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(options.duration());
+        while (System.nanoTime() < end) {
+            sleepUntilNextReport(end);
+            AESMetrics.Snapshot snapshot = metrics.snapshot();
+            long serverErrors = snapshot.authenticationFailures() + snapshot.protocolErrors() + snapshot.ioErrors();
+            report.line(new Sample(snapshot.messagesDecrypted() - previousMessages,
+                    snapshot.bytesDecrypted() - previousBytes, latency.snapshot(),
+                    serverErrors - previousErrors, snapshot.activeConnections()));
+            previousMessages = snapshot.messagesDecrypted();
+            previousBytes = snapshot.bytesDecrypted();
+            previousErrors = serverErrors;
+        }
+        report.summary(metrics.getMessagesDecrypted(), metrics.getBytesDecrypted(), null,
+                metrics.getAuthenticationFailures() + metrics.getProtocolErrors() + metrics.getIoErrors());
+    }
+
+    private void drive() throws Exception {
+        byte[] message = new byte[options.size()];
+        new Random(42).nextBytes(message);
+        List<byte[]> batch = Collections.nCopies(options.batch(), message);
+
+        for (int i = 0; i < options.connections(); i++) {
+            connections.add(connect());
+        }
+        System.out.printf("%d conexões com %s, %d em voo por conexão, mensagens %s de %d bytes%n",
+                options.connections(), options.host() + ":" + options.port(), options.depth(), options.type(),
+                options.size());
+
+        Report report = new Report();
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(options.duration());
+        CountDownLatch finished = new CountDownLatch(options.connections() * options.depth());
+        for (AESConnection connection : connections) {
+            for (int i = 0; i < options.depth(); i++) {
+                next(connection, message, batch, end, finished);
+            }
+        }
+
+        // Com muitas conexões disputando poucos núcleos, disparar as cadeias pode levar boa parte da duração;
+        // ao menos uma linha sai mesmo assim
+        LatencyHistogram.Window interval = totalLatency.window();
+        long previousCompleted = 0, previousBytes = 0, previousErrors = 0;
+        do {
+            sleepUntilNextReport(end);
+            LatencyHistogram.Snapshot latency = interval.snapshot();
+            long done = completed.sum(), sent = bytes.sum(), failed = errors.sum();
+            report.line(new Sample(done - previousCompleted, sent - previousBytes, latency, failed - previousErrors,
+                    openConnections()));
+            previousCompleted = done;
+            previousBytes = sent;
+            previousErrors = failed;
+        } while (System.nanoTime() < end);
+
+        // As requisições em voo no fim ainda entram no total
+        finished.await(10, TimeUnit.SECONDS);
+        retries.shutdown();
+        for (AESConnection connection : connections) {
+            connection.close();
+        }
+        report.summary(completed.sum(), bytes.sum(), totalLatency.snapshot(), errors.sum());
+        AESMetrics metrics = serverMetrics();
+        if (metrics != null) {
+            AESMetrics.Snapshot server = metrics.snapshot();
+            System.out.printf("Servidor: %d mensagens decifradas, %d falhas de autenticação, %d erros de protocolo,"
+                    + " %d erros de E/S, %d handshakes%n", server.messagesDecrypted(),
+                    server.authenticationFailures(), server.protocolErrors(), server.ioErrors(), server.handshakes());
+        }
+    }
+
+    private AESConnection connect() throws IOException, InterruptedException {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return options.handshake()
+                        ? new AESConnection(options.host(), options.port(), null)
+                        : new AESConnection(aes, options.host(), options.port());
+            } catch (IOException e) {
+                // O servidor iniciado aqui pode ainda não estar aceitando
+                if (attempt == 50) {
+                    throw e;
+                }
+                Thread.sleep(100);
+            }
+        }
+    }
+
+    // Manda a próxima requisição da cadeia quando a anterior volta; a latência é medida do envio à resposta.
+    // Num quadro BATCH a latência é a do lote e a vazão conta cada mensagem. Uma resposta só chega pela
+    // thread leitora, depois que next já retornou; uma falha pode vir já completada na mesma pilha do
+    // envio, então o reenvio depois dela passa pela thread de retries em vez de chamar next recursivamente.
+    private void next(AESConnection connection, byte[] message, List<byte[]> batch, long end,
+            CountDownLatch finished) {
+        if (System.nanoTime() >= end || !connection.isOpen()) {
+            finished.countDown();
+            return;
+        }
+        int messages = options.type().equals("BATCH") ? batch.size() : 1;
+        long start = System.nanoTime();
+        CompletableFuture<?> response;
+        try {
+            response = switch (options.type()) {
+                case "SEALED" -> connection.sendSealed(message);
+                case "BATCH" -> connection.sendBatch(batch);
+                default -> connection.send(message);
+            };
+        } catch (RuntimeException e) {
+            response = CompletableFuture.failedFuture(e);
+        }
+        response.whenComplete((result, failure) -> {
+            long latency = System.nanoTime() - start;
+            if (failure == null) {
+                completed.add(messages);
+                bytes.add((long) messages * message.length);
+                totalLatency.record(latency);
+                next(connection, message, batch, end, finished);
+                return;
+            }
+            errors.add(messages);
+            try {
+                retries.execute(() -> next(connection, message, batch, end, finished));
+            } catch (RejectedExecutionException e) {
+                finished.countDown();
+            }
+        });
+    }
+
+    private long openConnections() {
+        long open = 0;
+        synchronized (connections) {
+            for (AESConnection connection : connections) {
+                if (connection.isOpen()) {
+                    open++;
+                }
+            }
+        }
+        return open;
+    }
+
+    private void sleepUntilNextReport(long end) throws InterruptedException {
+        long wait = Math.min(TimeUnit.SECONDS.toNanos(options.interval()), end - System.nanoTime());
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+    // Impressão dos intervalos e do resumo, com heap e GC da JVM deste processo
+    private final class Report {
+        private final long start = System.nanoTime();
+        private long last = start;
+        private long firstRetained = -1;
+        private long lastRetained;
+        private long gcCount = gcCount();
+        private long gcTime = gcTime();
+        private final long initialGcCount = gcCount;
+        private final long initialGcTime = gcTime;
+
+        Report() {
+            System.out.printf("%7s %11s %8s %9s %9s %9s %9s %7s %6s %9s %9s %5s %7s%n", "t(s)", "msgs/s", "MB/s",
+                    "p50(µs)", "p99(µs)", "p99.9(µs)", "máx(µs)", "erros", "conex", "heap(MB)", "retido", "GCs",
+                    "GC(ms)");
+        }
+
+        void line(Sample sample) {
+            long now = System.nanoTime();
+            double seconds = (now - last) / 1e9;
+            last = now;
+            long retained = heapRetained();
+            if (firstRetained < 0) {
+                firstRetained = retained;
+            }
+            lastRetained = retained;
+            long count = gcCount(), time = gcTime();
+            LatencyHistogram.Snapshot latency = sample.latency();
+            System.out.printf("%7.1f %11.0f %8.2f %9.1f %9.1f %9.1f %9.1f %7d %6d %9.1f %9.1f %5d %7d%n",
+                    (now - start) / 1e9, sample.messages() / seconds, sample.bytes() / seconds / 1e6,
+                    latency.p50() / 1e3, latency.p99() / 1e3, latency.p999() / 1e3, latency.max() / 1e3,
+                    sample.errors(), sample.connections(), heapUsed() / 1e6, retained / 1e6, count - gcCount,
+                    time - gcTime);
+            gcCount = count;
+            gcTime = time;
+        }
+
+        void summary(long messages, long totalBytes, LatencyHistogram.Snapshot latency, long failures) {
+            double seconds = (System.nanoTime() - start) / 1e9;
+            long total = messages + failures;
+            System.out.printf("%nTotal: %d mensagens em %.1f s (%.0f msgs/s, %.2f MB/s), %d erros (%.3f%%)%n",
+                    messages, seconds, messages / seconds, totalBytes / seconds / 1e6, failures,
+                    total == 0 ? 0.0 : 100.0 * failures / total);
+            if (latency != null) {
+                System.out.printf("Latência (µs): p50 %.1f  p90 %.1f  p99 %.1f  p99.9 %.1f  máx %.1f  média %.1f%n",
+                        latency.p50() / 1e3, latency.p90() / 1e3, latency.p99() / 1e3, latency.p999() / 1e3,
+                        latency.max() / 1e3, latency.mean() / 1e3);
+            }
+            if (firstRetained >= 0) {
+                System.out.printf("Heap retido: %.1f MB no primeiro intervalo, %.1f MB no último%n",
+                        firstRetained / 1e6, lastRetained / 1e6);
+            }
+            System.out.printf("GC: %d coletas, %d ms%n", gcCount() - initialGcCount, gcTime() - initialGcTime);
+        }
+    }
+
+    private static long heapUsed() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    // Heap ocupado fora do eden: o que sobreviveu a ao menos uma coleta. O uso após a última coleta
+    // (getCollectionUsage) não serve aqui porque na geração velha ele só muda numa coleta completa.
+    // Coletores de um pool só (ZGC, Shenandoah) contam o heap inteiro.
+    private static long heapRetained() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && !pool.getName().contains("Eden")) {
+                used += pool.getUsage().getUsed();
+            }
+        }
+        return used;
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long gcTime() {
+        long time = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            time += Math.max(0, gc.getCollectionTime());
+        }
+        return time;
+    }
+}
@@ -0,0 +1,271 @@
+package com.aes;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+// Métricas de um servidor: contadores LongAdder (sem disputa entre as threads de conexão) e histogramas
+// de latência de decifração e cifração por mensagem. Nada aqui escreve no console; a leitura fica com
+// o JMX (register) ou com um relatório periódico (startReporting) numa thread própria, fora do caminho
+// das mensagens.
+public class AESMetrics implements AESMetricsMBean {
+    private static final ScheduledExecutorService REPORTER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "aes-metricas");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Percentis lidos pelo JMX: um cliente que pede P50, P99 e P99.9 juntos chama três getters, então os
+    // histogramas são somados uma vez e reaproveitados por esse intervalo
+    private static final long LATENCY_CACHE_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final AESSessionManager sessions;
+    private final LongAdder connectionsOpened = new LongAdder();
+    private final LongAdder connectionsClosed = new LongAdder();
+    private final LongAdder messagesDecrypted = new LongAdder();
+    private final LongAdder messagesEncrypted = new LongAdder();
+    private final LongAdder bytesDecrypted = new LongAdder();
+    private final LongAdder bytesEncrypted = new LongAdder();
+    private final LongAdder authenticationFailures = new LongAdder();
+    private final LongAdder protocolErrors = new LongAdder();
+    private final LongAdder ioErrors = new LongAdder();
+    private final LatencyHistogram decryptLatency = new LatencyHistogram();
+    private final LatencyHistogram encryptLatency = new LatencyHistogram();
+    private volatile ObjectName registeredName;
+    private volatile Latencies latencies = new Latencies(0, null, null);
+
+    public record Snapshot(long timestamp, long activeConnections, long connectionsOpened, long messagesDecrypted,
+            long messagesEncrypted, long bytesDecrypted, long bytesEncrypted, long authenticationFailures,
+            long protocolErrors, long ioErrors, long handshakes, long resumptions, long rejectedHandshakes,
+            double keyCacheHitRate, LatencyHistogram.Snapshot decryptLatency,
+            LatencyHistogram.Snapshot encryptLatency) {
+    }
+
+    private record Latencies(long nanoTime, LatencyHistogram.Snapshot decrypt, LatencyHistogram.Snapshot encrypt) {
+    }
+
+    public AESMetrics() {
+        this(null);
+    }
+
+    // Com um AESSessionManager, os contadores de handshake e o cache de chaves entram no snapshot
+    public AESMetrics(AESSessionManager sessions) {
+        this.sessions = sessions;
+    }
+
+    public void connectionOpened() {
+        connectionsOpened.increment();
+    }
+
+    public void connectionClosed() {
+        connectionsClosed.increment();
+    }
+
+    public void decrypted(int bytes, long nanos) {
+        decrypted(1, bytes, nanos);
+    }
+
+    // Um lote (BATCH) conta todas as suas mensagens, mas entra no histograma como uma só operação
+    public void decrypted(int messages, int bytes, long nanos) {
+        messagesDecrypted.add(messages);
+        bytesDecrypted.add(bytes);
+        decryptLatency.record(nanos);
+    }
+
+    public void encrypted(int bytes, long nanos) {
+        encrypted(1, bytes, nanos);
+    }
+
+    public void encrypted(int messages, int bytes, long nanos) {
+        messagesEncrypted.add(messages);
+        bytesEncrypted.add(bytes);
+        encryptLatency.record(nanos);
+    }
+
+    // Tag GCM ou padding inválidos
+    public void authenticationFailure() {
+        authenticationFailures.increment();
+    }
+
+    // Quadro de tipo desconhecido ou malformado
+    public void protocolError() {
+        protocolErrors.increment();
+    }
+
+    public void ioError() {
+        ioErrors.increment();
+    }
+
+    public Snapshot snapshot() {
+        return new Snapshot(System.currentTimeMillis(), getActiveConnections(), connectionsOpened.sum(),
+                messagesDecrypted.sum(), messagesEncrypted.sum(), bytesDecrypted.sum(), bytesEncrypted.sum(),
+                authenticationFailures.sum(), protocolErrors.sum(), ioErrors.sum(), getHandshakes(),
+                getResumptions(), getRejectedHandshakes(), getKeyCacheHitRate(), decryptLatency.snapshot(),
+                encryptLatency.snapshot());
+    }
+
+    // Entrega um snapshot ao reporter a cada período; cancele o ScheduledFuture devolvido para parar
+    public ScheduledFuture<?> startReporting(long period, TimeUnit unit, Consumer<Snapshot> reporter) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("O período do relatório deve ser positivo");
+        }
+        return REPORTER.scheduleAtFixedRate(() -> reporter.accept(snapshot()), period, period, unit);
+    }
+
+    // Publica no MBeanServer da plataforma como com.aes:type=AESMetrics,name=<name>
+    public ObjectName register(String name) {
+        try {
+            ObjectName objectName = new ObjectName("com.aes:type=AESMetrics,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            registeredName = objectName;
+            return objectName;
+        } catch (JMException e) {
+            throw new IllegalStateException("Não foi possível registrar as métricas: " + e.getMessage(), e);
+        }
+    }
+
+    public void unregister() {
+        ObjectName objectName = registeredName;
+        if (objectName == null) {
+            return;
+        }
+        registeredName = null;
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.unregisterMBean(objectName);
+        } catch (JMException ignored) {
+        }
+    }
+
+    @Override
+    public long getActiveConnections() {
+        return connectionsOpened.sum() - connectionsClosed.sum();
+    }
+
+    @Override
+    public long getConnectionsOpened() {
+        return connectionsOpened.sum();
+    }
+
+    @Override
+    public long getMessagesDecrypted() {
+        return messagesDecrypted.sum();
+    }
+
+    @Override
+    public long getMessagesEncrypted() {
+        return messagesEncrypted.sum();
+    }
+
+    @Override
+    public long getBytesDecrypted() {
+        return bytesDecrypted.sum();
+    }
+
+    @Override
+    public long getBytesEncrypted() {
+        return bytesEncrypted.sum();
+    }
+
+    @Override
+    public long getAuthenticationFailures() {
+        return authenticationFailures.sum();
+    }
+
+    @Override
+    public long getProtocolErrors() {
+        return protocolErrors.sum();
+    }
+
+    @Override
+    public long getIoErrors() {
+        return ioErrors.sum();
+    }
+
+    @Override
+    public long getHandshakes() {
+        return sessions == null ? 0 : sessions.getHandshakes();
+    }
+
+    @Override
+    public long getResumptions() {
+        return sessions == null ? 0 : sessions.getResumptions();
+    }
+
+    @Override
+    public long getRejectedHandshakes() {
+        return sessions == null ? 0 : sessions.getRejected();
+    }
+
+    // Fração das consultas ao cache de chaves atendidas sem expandir a chave; 0 antes da primeira consulta
+    @Override
+    public double getKeyCacheHitRate() {
+        if (sessions == null) {
+            return 0;
+        }
+        AESKeyCache cache = sessions.getKeyCache();
+        long hits = cache.getHits();
+        long lookups = hits + cache.getMisses();
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public double getDecryptLatencyP50Micros() {
+        return latencies().decrypt().p50() / 1000.0;
+    }
+
+    @Override
+    public double getDecryptLatencyP99Micros() {
+        return latencies().decrypt().p99() / 1000.0;
+    }
+
+    @Override
+    public double getDecryptLatencyP999Micros() {
+        return latencies().decrypt().p999() / 1000.0;
+    }
+
+    @Override
+    public double getEncryptLatencyP50Micros() {
+        return latencies().encrypt().p50() / 1000.0;
+    }
+
+    @Override
+    public double getEncryptLatencyP99Micros() {
+        return latencies().encrypt().p99() / 1000.0;
+    }
+
+    @Override
+    public double getEncryptLatencyP999Micros() {
+        return latencies().encrypt().p999() / 1000.0;
+    }
+
+    // Latência de decifração por janelas, sem zerar o histograma visto pelo JMX
+    public LatencyHistogram.Window decryptLatencyWindow() {
+        return decryptLatency.window();
+    }
+
+    // Zera só os histogramas, para medir janelas de latência sem perder os totais
+    @Override
+    public void resetLatencies() {
+        decryptLatency.reset();
+        encryptLatency.reset();
+        latencies = new Latencies(0, null, null);
+    }
+
+    private Latencies latencies() {
+        Latencies current = latencies;
+        long now = System.nanoTime();
+        if (current.decrypt() == null || now - current.nanoTime() > LATENCY_CACHE_NANOS) {
+            current = new Latencies(now, decryptLatency.snapshot(), encryptLatency.snapshot());
+            latencies = current;
+        }
+        return current;
+    }
+}
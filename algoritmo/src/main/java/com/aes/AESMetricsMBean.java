@@ -0,0 +1,44 @@
+package com.aes;
+
+// Atributos publicados via JMX (MBean padrão); latências em microssegundos
+public interface AESMetricsMBean {
+    long getActiveConnections();
+
+    long getConnectionsOpened();
+
+    long getMessagesDecrypted();
+
+    long getMessagesEncrypted();
+
+    long getBytesDecrypted();
+
+    long getBytesEncrypted();
+
+    long getAuthenticationFailures();
+
+    long getProtocolErrors();
+
+    long getIoErrors();
+
+    long getHandshakes();
+
+    long getResumptions();
+
+    long getRejectedHandshakes();
+
+    double getKeyCacheHitRate();
+
+    double getDecryptLatencyP50Micros();
+
+    double getDecryptLatencyP99Micros();
+
+    double getDecryptLatencyP999Micros();
+
+    double getEncryptLatencyP50Micros();
+
+    double getEncryptLatencyP99Micros();
+
+    double getEncryptLatencyP999Micros();
+
+    void resetLatencies();
+}
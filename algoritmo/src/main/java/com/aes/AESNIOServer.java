@@ -0,0 +1,398 @@
+package com.aes;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// Variante não bloqueante do AESTCPServer: uma thread aceita conexões e as distribui entre
+// laços de eventos (um Selector por núcleo). Cada quadro recebido (ver AESProtocol) é decifrado e
+// a resposta cifrada direto nos ByteBuffers diretos do pool, sem cópia para byte[]. Quadros SEALED passam
+// por um array do laço, porque o AESGCM trabalha sobre byte[]. Sem handshake: só a chave fixa do servidor.
+public class AESNIOServer extends Thread {
+    static final int DEFAULT_BUFFER_SIZE = 4096;
+
+    private static final byte[] RESPOSTA_CLARA = "Olá, cliente!".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] RESPOSTA = AES128.pad(RESPOSTA_CLARA);
+    // Espaço na saída para a maior resposta a um quadro: a SEALED, com IV e tag
+    private static final int MAX_RESPONSE = AESProtocol.HEADER_SIZE
+            + Math.max(RESPOSTA.length, AESGCM.IV_SIZE + RESPOSTA_CLARA.length + AESGCM.TAG_SIZE);
+
+    private final AES128 aes;
+    private final int port;
+    private final EventLoop[] loops;
+    private final BufferPool pool;
+    private final AESMetrics metrics = new AESMetrics();
+    private final FrameBudget frameBudget;
+    private volatile ServerSocketChannel serverChannel;
+    private volatile boolean running = true;
+
+    public AESNIOServer(AES128 aes, int port) {
+        this(aes, port, Runtime.getRuntime().availableProcessors());
+    }
+
+    public AESNIOServer(AES128 aes, int port, int eventLoops) {
+        this(aes, port, eventLoops, FrameBudget.SHARED);
+    }
+
+    AESNIOServer(AES128 aes, int port, int eventLoops, FrameBudget frameBudget) {
+        if (eventLoops <= 0) {
+            throw new IllegalArgumentException("O número de laços de eventos deve ser positivo");
+        }
+        this.aes = aes;
+        this.port = port;
+        this.pool = new BufferPool(DEFAULT_BUFFER_SIZE, 4096, true);
+        this.loops = new EventLoop[eventLoops];
+        this.frameBudget = frameBudget;
+    }
+
+    @Override
+    public void run() {
+        try (ServerSocketChannel serverChannel = ServerSocketChannel.open()) {
+            serverChannel.bind(new InetSocketAddress(port), 1024);
+            this.serverChannel = serverChannel;
+            for (int i = 0; i < loops.length; i++) {
+                loops[i] = new EventLoop(Selector.open(), "aes-nio-" + i);
+                loops[i].start();
+            }
+            try {
+                metrics.register("AESNIOServer-" + serverChannel.socket().getLocalPort());
+            } catch (IllegalStateException e) {
+                System.out.println(e.getMessage());
+            }
+            System.out.println("Servidor NIO esperando conexão na porta " + port);
+
+            int next = 0;
+            while (running) {
+                SocketChannel channel;
+                try {
+                    channel = serverChannel.accept();
+                } catch (IOException e) {
+                    if (!running) {
+                        break;
+                    }
+                    System.out.println("Erro ao aceitar conexão: " + e.getMessage());
+                    continue;
+                }
+                loops[next].register(channel);
+                next = (next + 1) % loops.length;
+            }
+        } catch (IOException e) {
+            System.out.println("Erro no servidor: " + e.getMessage());
+        } finally {
+            metrics.unregister();
+        }
+    }
+
+    public int getActiveConnections() {
+        int total = 0;
+        for (EventLoop loop : loops) {
+            if (loop != null) {
+                total += loop.connections;
+            }
+        }
+        return total;
+    }
+
+    // Bytes reservados no FrameBudget por quadros maiores que o buffer do pool, somando os dois servidores
+    // quando dividem o orçamento padrão
+    public long getOversizedBytes() {
+        return frameBudget.used();
+    }
+
+    public AESMetrics getMetrics() {
+        return metrics;
+    }
+
+    public void shutdown() throws InterruptedException {
+        running = false;
+        ServerSocketChannel channel = serverChannel;
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+        }
+        join();
+        for (EventLoop loop : loops) {
+            if (loop != null) {
+                loop.selector.wakeup();
+                loop.join();
+            }
+        }
+    }
+
+    // Buffers só são retirados do pool enquanto há dados pendentes: conexões ociosas não ocupam memória
+    private static final class Connection {
+        final SocketChannel channel;
+        ByteBuffer in;
+        ByteBuffer out;
+        boolean blocked;
+        // Quadro recusado: depois de enviar as respostas pendentes e o ERROR a conexão é fechada
+        boolean closing;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+    }
+
+    private final class EventLoop extends Thread {
+        final Selector selector;
+        final Queue<SocketChannel> pending = new ConcurrentLinkedQueue<>();
+        final AESProtocol.Sealer sealer = new AESProtocol.Sealer(new AESGCM(aes));
+        // Corpo SEALED copiado do buffer direto; quadros maiores usam um array só deles
+        final byte[] sealed = new byte[DEFAULT_BUFFER_SIZE];
+        volatile int connections;
+
+        EventLoop(Selector selector, String name) {
+            super(name);
+            this.selector = selector;
+            setDaemon(true);
+        }
+
+        void register(SocketChannel channel) {
+            pending.offer(channel);
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            try (selector) {
+                while (running) {
+                    selector.select();
+                    registerPending();
+
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        Connection connection = (Connection) key.attachment();
+                        try {
+                            if (key.isReadable()) {
+                                read(key, connection);
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                write(key, connection);
+                            }
+                        } catch (IOException | RuntimeException e) {
+                            metrics.ioError();
+                            close(key, connection);
+                        }
+                    }
+                }
+                for (SelectionKey key : selector.keys()) {
+                    close(key, (Connection) key.attachment());
+                }
+            } catch (IOException e) {
+                System.out.println("Erro no laço de eventos: " + e.getMessage());
+            }
+        }
+
+        private void registerPending() {
+            SocketChannel channel;
+            while ((channel = pending.poll()) != null) {
+                try {
+                    channel.configureBlocking(false);
+                    channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                    channel.register(selector, SelectionKey.OP_READ, new Connection(channel));
+                    connections++;
+                    metrics.connectionOpened();
+                } catch (IOException e) {
+                    try {
+                        channel.close();
+                    } catch (IOException ignored) {
+                    }
+                }
+            }
+        }
+
+        private void read(SelectionKey key, Connection connection) throws IOException {
+            if (connection.closing) {
+                return;
+            }
+            if (connection.in == null) {
+                connection.in = pool.acquire();
+            }
+            int n = connection.channel.read(connection.in);
+            if (n < 0) {
+                close(key, connection);
+                return;
+            }
+            process(connection);
+            write(key, connection);
+        }
+
+        // Decifra o corpo de cada quadro completo no próprio buffer de entrada e cifra a resposta no buffer de saída
+        private void process(Connection connection) throws IOException {
+            ByteBuffer in = connection.in;
+            in.flip();
+            connection.blocked = false;
+            int size;
+            while ((size = AESProtocol.frameSize(in)) >= 0 && in.remaining() >= size) {
+                if (connection.out == null) {
+                    connection.out = pool.acquire();
+                }
+                ByteBuffer out = connection.out;
+                if (out.remaining() < MAX_RESPONSE) {
+                    connection.blocked = true;
+                    break;
+                }
+
+                int start = in.position();
+                byte type = in.get(start + 4);
+                int id = in.getInt(start + 5);
+                int body = start + AESProtocol.HEADER_SIZE;
+                int bodyLength = size - AESProtocol.HEADER_SIZE;
+                in.position(start + size);
+
+                if (type == AESProtocol.TYPE_MESSAGE && bodyLength > 0 && bodyLength % 16 == 0) {
+                    long started = System.nanoTime();
+                    aes.decryptECB(in, body, bodyLength, in, body);
+                    if (validPadding(in, body, bodyLength)) {
+                        long encrypting = System.nanoTime();
+                        metrics.decrypted(bodyLength, encrypting - started);
+                        AESProtocol.putHeader(out, AESProtocol.TYPE_MESSAGE, id, RESPOSTA.length);
+                        int at = out.position();
+                        out.put(RESPOSTA);
+                        aes.encryptECB(out, at, RESPOSTA.length, out, at);
+                        metrics.encrypted(RESPOSTA.length, System.nanoTime() - encrypting);
+                        continue;
+                    }
+                    metrics.authenticationFailure();
+                } else if (type == AESProtocol.TYPE_MESSAGE) {
+                    metrics.authenticationFailure();
+                } else if (type == AESProtocol.TYPE_SEALED) {
+                    if (handleSealed(in, id, body, bodyLength, out)) {
+                        continue;
+                    }
+                    metrics.authenticationFailure();
+                } else {
+                    metrics.protocolError();
+                }
+                AESProtocol.putHeader(out, AESProtocol.TYPE_ERROR, id, 0);
+            }
+            if (size > in.capacity() && !connection.blocked && in.remaining() >= AESProtocol.HEADER_SIZE) {
+                grow(connection, size);
+                return;
+            }
+            in.compact();
+            if (in.position() == 0) {
+                recycle(in);
+                connection.in = null;
+            }
+        }
+
+        // Quadro maior que o buffer atual: troca por um buffer direto exclusivo do tamanho do quadro, reservado
+        // no FrameBudget. Acima do limite do protocolo ou sem orçamento, responde ERROR e fecha depois de
+        // enviar o que estiver pendente. in está em modo leitura, com o cabeçalho completo.
+        private void grow(Connection connection, int size) {
+            ByteBuffer in = connection.in;
+            if (size <= 4 + AESProtocol.MAX_FRAME_LENGTH && frameBudget.reserve(size)) {
+                ByteBuffer larger = ByteBuffer.allocateDirect(size);
+                larger.put(in);
+                recycle(in);
+                connection.in = larger;
+                return;
+            }
+            if (connection.out == null) {
+                connection.out = pool.acquire();
+            }
+            if (connection.out.remaining() < AESProtocol.HEADER_SIZE) {
+                // Recusa de novo quando write() esvaziar a saída
+                connection.blocked = true;
+                in.compact();
+                return;
+            }
+            metrics.protocolError();
+            AESProtocol.putHeader(connection.out, AESProtocol.TYPE_ERROR, in.getInt(in.position() + 5), 0);
+            connection.closing = true;
+            recycle(in);
+            connection.in = null;
+        }
+
+        // Abre o corpo SEALED numa cópia e escreve a resposta selada em out; false se não autenticar
+        private boolean handleSealed(ByteBuffer in, int id, int body, int bodyLength, ByteBuffer out) {
+            byte[] copy = bodyLength <= sealed.length ? sealed : new byte[bodyLength];
+            in.get(body, copy, 0, bodyLength);
+            long started = System.nanoTime();
+            try {
+                sealer.open(false, id, copy, bodyLength);
+            } catch (IllegalArgumentException e) {
+                return false;
+            }
+            long encrypting = System.nanoTime();
+            metrics.decrypted(bodyLength, encrypting - started);
+            int length = sealer.seal(true, id, RESPOSTA_CLARA, 0, RESPOSTA_CLARA.length, copy, 0);
+            metrics.encrypted(length, System.nanoTime() - encrypting);
+            AESProtocol.putHeader(out, AESProtocol.TYPE_SEALED, id, length);
+            out.put(copy, 0, length);
+            return true;
+        }
+
+        private boolean validPadding(ByteBuffer in, int body, int bodyLength) {
+            try {
+                AES128.unpaddedLength(in, body, bodyLength);
+                return true;
+            } catch (IllegalArgumentException e) {
+                return false;
+            }
+        }
+
+        private void write(SelectionKey key, Connection connection) throws IOException {
+            ByteBuffer out = connection.out;
+            if (out != null) {
+                out.flip();
+                connection.channel.write(out);
+                out.compact();
+                if (out.position() == 0) {
+                    recycle(out);
+                    connection.out = null;
+                }
+            }
+            if (connection.out == null && connection.closing) {
+                close(key, connection);
+                return;
+            }
+            // Com saída pendente, pausa a leitura até o cliente consumir as respostas
+            key.interestOps(connection.out == null ? SelectionKey.OP_READ : SelectionKey.OP_WRITE);
+            if (connection.out == null && connection.blocked) {
+                process(connection);
+                write(key, connection);
+            }
+        }
+
+        private void recycle(ByteBuffer buffer) {
+            if (buffer.capacity() == pool.getBufferSize()) {
+                pool.release(buffer);
+            } else {
+                frameBudget.release(buffer.capacity());
+            }
+        }
+
+        private void close(SelectionKey key, Connection connection) {
+            if (!connection.channel.isOpen()) {
+                return;
+            }
+            key.cancel();
+            try {
+                connection.channel.close();
+            } catch (IOException ignored) {
+            }
+            if (connection.in != null) {
+                recycle(connection.in);
+                connection.in = null;
+            }
+            if (connection.out != null) {
+                recycle(connection.out);
+                connection.out = null;
+            }
+            connections--;
+            metrics.connectionClosed();
+        }
+    }
+}
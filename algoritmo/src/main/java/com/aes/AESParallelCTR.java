@@ -0,0 +1,73 @@
+package com.aes;
+
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Modo CTR em paralelo: divide o buffer em trechos e cifra cada um com o contador deslocado correspondente
+public class AESParallelCTR {
+    static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+
+    private final AES128 aes;
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+
+    public AESParallelCTR(AES128 aes) {
+        this(aes, ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    public AESParallelCTR(AES128 aes, ForkJoinPool pool, int chunkSize) {
+        if (chunkSize <= 0 || chunkSize % 16 != 0) {
+            throw new IllegalArgumentException("O tamanho do trecho deve ser um múltiplo positivo de 16 bytes");
+        }
+        this.aes = aes;
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+    }
+
+    public void process(byte[] iv, byte[] in, int inOff, int len, byte[] out, int outOff) {
+        Objects.checkFromIndexSize(inOff, len, in.length);
+        Objects.checkFromIndexSize(outOff, len, out.length);
+        if (len <= chunkSize) {
+            aes.processCTR(iv, in, inOff, len, out, outOff);
+            return;
+        }
+        pool.invoke(new Chunk(iv, in, inOff, out, outOff, 0, len));
+    }
+
+    private class Chunk extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final byte[] iv;
+        private final byte[] in;
+        private final int inOff;
+        private final byte[] out;
+        private final int outOff;
+        private final int from;
+        private final int to;
+
+        Chunk(byte[] iv, byte[] in, int inOff, byte[] out, int outOff, int from, int to) {
+            this.iv = iv;
+            this.in = in;
+            this.inOff = inOff;
+            this.out = out;
+            this.outOff = outOff;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            int len = to - from;
+            if (len <= chunkSize) {
+                aes.processCTR(iv, from / 16, in, inOff + from, len, out, outOff + from);
+                return;
+            }
+            // Divide em fronteira de trecho para que cada parte comece num bloco inteiro
+            int chunks = (len + chunkSize - 1) / chunkSize;
+            int mid = from + (chunks / 2) * chunkSize;
+            invokeAll(new Chunk(iv, in, inOff, out, outOff, from, mid),
+                    new Chunk(iv, in, inOff, out, outOff, mid, to));
+        }
+    }
+}
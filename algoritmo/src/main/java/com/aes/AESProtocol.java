@@ -0,0 +1,337 @@
+package com.aes;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Protocolo com enquadramento entre AESTCPClient e os servidores:
+//
+//   int  length   bytes que seguem este campo (tipo + id + corpo)
+//   byte type     MESSAGE, ERROR, HELLO, RESUME (ver AESHandshake), SEALED, BATCH
+//   int  id       escolhido pelo cliente; a resposta repete o id da requisição
+//   byte[] body   texto cifrado com padding (múltiplo de 16 bytes), dados do handshake ou, em SEALED,
+//                 IV (12 bytes) + texto cifrado + tag em AES-GCM
+//
+// O corpo de BATCH leva várias mensagens independentes, cada uma cifrada como em MESSAGE:
+//
+//   int   count        número de mensagens
+//   int[] lengths      tamanho cifrado de cada uma; na resposta, 0 marca mensagem recusada
+//   byte[] data        os textos cifrados em sequência
+//
+// Como cada resposta carrega o id, o cliente pode enviar várias requisições sem esperar as anteriores.
+public final class AESProtocol {
+    public static final byte TYPE_MESSAGE = 1;
+    public static final byte TYPE_ERROR = 2;
+    public static final byte TYPE_HELLO = 3;
+    public static final byte TYPE_RESUME = 4;
+    public static final byte TYPE_SEALED = 5;
+    public static final byte TYPE_BATCH = 6;
+
+    public static final int HEADER_SIZE = 9;
+    public static final int MAX_FRAME_LENGTH = 16 * 1024 * 1024;
+
+    private static final SecureRandom NONCES = new SecureRandom();
+
+    private AESProtocol() {
+    }
+
+    public record Frame(byte type, int id, byte[] body) {
+    }
+
+    public static void writeFrame(DataOutputStream out, byte type, int id, byte[] body) throws IOException {
+        writeFrame(out, type, id, body, 0, body.length);
+    }
+
+    // Corpos acima de MAX_FRAME_LENGTH - 5 seriam recusados pelo outro lado; falham aqui, antes de escrever
+    public static void writeFrame(DataOutputStream out, byte type, int id, byte[] body, int off, int len)
+            throws IOException {
+        if (len > MAX_FRAME_LENGTH - 5) {
+            throw new IllegalArgumentException("Corpo de " + len + " bytes acima do tamanho máximo de um quadro");
+        }
+        out.writeInt(1 + 4 + len);
+        out.writeByte(type);
+        out.writeInt(id);
+        out.write(body, off, len);
+    }
+
+    // Retorna null quando a conexão termina entre dois quadros
+    public static Frame readFrame(DataInputStream in) throws IOException {
+        int length;
+        try {
+            length = in.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        checkLength(length);
+        byte type = in.readByte();
+        int id = in.readInt();
+        byte[] body = new byte[length - 5];
+        in.readFully(body);
+        return new Frame(type, id, body);
+    }
+
+    // Leitor reutilizável, sem alocação por quadro: o corpo vai sempre para o mesmo array, que só é
+    // trocado por um maior quando chega um quadro que não cabe. Sem orçamento o array maior fica; com
+    // orçamento (servidores) ele é reservado no FrameBudget e devolvido na leitura seguinte.
+    public static final class FrameReader {
+        private final byte[] base;
+        private final FrameBudget budget;
+        private byte[] body;
+        private byte type;
+        private int id;
+        private int length;
+        private boolean refused;
+
+        public FrameReader(byte[] body) {
+            this(body, null);
+        }
+
+        FrameReader(byte[] body, FrameBudget budget) {
+            this.base = body;
+            this.budget = budget;
+            this.body = body;
+        }
+
+        // false quando a conexão termina entre dois quadros
+        public boolean read(DataInputStream in) throws IOException {
+            release();
+            int frameLength;
+            try {
+                frameLength = in.readInt();
+            } catch (EOFException e) {
+                return false;
+            }
+            if (frameLength < 5) {
+                throw new IOException("Tamanho de quadro inválido: " + frameLength);
+            }
+            type = in.readByte();
+            id = in.readInt();
+            length = frameLength - 5;
+            refused = false;
+            if (length > body.length) {
+                if (frameLength > MAX_FRAME_LENGTH || budget != null && !budget.reserve(length)) {
+                    refused = true;
+                    return true;
+                }
+                body = new byte[length];
+            }
+            in.readFully(body, 0, length);
+            return true;
+        }
+
+        // Quadro acima de MAX_FRAME_LENGTH ou sem orçamento para o corpo: type e id valem, mas o corpo não
+        // foi lido e o stream ficou no meio do quadro. Quem lê responde ERROR e fecha a conexão.
+        public boolean refused() {
+            return refused;
+        }
+
+        // Devolve ao orçamento o array maior, se houver; chamado também quando a conexão termina
+        public void release() {
+            if (budget != null && body != base) {
+                budget.release(body.length);
+                body = base;
+            }
+        }
+
+        public byte type() {
+            return type;
+        }
+
+        public int id() {
+            return id;
+        }
+
+        // Válido só até a próxima leitura; os length primeiros bytes são o corpo
+        public byte[] body() {
+            return body;
+        }
+
+        public int length() {
+            return length;
+        }
+    }
+
+    // Tamanho total do próximo quadro em buf (a partir de position), ou -1 se o cabeçalho ainda não chegou.
+    // Um quadro acima de MAX_FRAME_LENGTH devolve Integer.MAX_VALUE, que não cabe em buffer nenhum: quem
+    // chama o recusa com ERROR. Só um tamanho menor que tipo + id é erro de E/S.
+    public static int frameSize(ByteBuffer buf) throws IOException {
+        if (buf.remaining() < 4) {
+            return -1;
+        }
+        int length = buf.getInt(buf.position());
+        if (length < 5) {
+            throw new IOException("Tamanho de quadro inválido: " + length);
+        }
+        return length > MAX_FRAME_LENGTH ? Integer.MAX_VALUE : 4 + length;
+    }
+
+    public static void putHeader(ByteBuffer buf, byte type, int id, int bodyLength) {
+        buf.putInt(1 + 4 + bodyLength);
+        buf.put(type);
+        buf.putInt(id);
+    }
+
+    // Estado de uma thread para quadros SEALED sem alocação: IV, AAD e área de trabalho do GCM reaproveitados.
+    // Não é thread-safe; cada thread leitora/escritora usa o seu.
+    public static final class Sealer {
+        private final AESGCM gcm;
+        private final byte[] iv = new byte[AESGCM.IV_SIZE];
+        private final byte[] peerIv = new byte[AESGCM.IV_SIZE];
+        private final byte[] aad = new byte[5];
+        private final byte[] scratch = new byte[AESGCM.SCRATCH_SIZE];
+        private int counter;
+
+        public Sealer(AESGCM gcm) {
+            this.gcm = gcm;
+            NONCES.nextBytes(iv);
+        }
+
+        // Escreve IV + texto cifrado + tag em out e devolve o tamanho do corpo. O IV é um prefixo aleatório
+        // de 8 bytes seguido de um contador de 32 bits (SP 800-38D, 8.2.1): o SecureRandom só é chamado de
+        // novo quando o contador dá a volta, e não a cada quadro
+        public int seal(boolean response, int id, byte[] in, int inOff, int len, byte[] out, int outOff) {
+            if (++counter == 0) {
+                NONCES.nextBytes(iv);
+            }
+            iv[8] = (byte) (counter >>> 24);
+            iv[9] = (byte) (counter >>> 16);
+            iv[10] = (byte) (counter >>> 8);
+            iv[11] = (byte) counter;
+            putAad(aad, response, id);
+            System.arraycopy(iv, 0, out, outOff, AESGCM.IV_SIZE);
+            gcm.encrypt(iv, aad, in, inOff, len, out, outOff + AESGCM.IV_SIZE, scratch);
+            return AESGCM.IV_SIZE + len + AESGCM.TAG_SIZE;
+        }
+
+        // Decifra no próprio corpo: o texto claro fica em body[IV_SIZE..IV_SIZE + n) e n é devolvido
+        public int open(boolean response, int id, byte[] body, int len) {
+            if (len < AESGCM.IV_SIZE + AESGCM.TAG_SIZE) {
+                throw new IllegalArgumentException("Quadro selado incompleto");
+            }
+            System.arraycopy(body, 0, peerIv, 0, AESGCM.IV_SIZE);
+            putAad(aad, response, id);
+            return gcm.decrypt(peerIv, aad, body, AESGCM.IV_SIZE, len - AESGCM.IV_SIZE, body, AESGCM.IV_SIZE, scratch);
+        }
+    }
+
+    // O AAD liga o corpo SEALED ao id e ao sentido do quadro: não dá para trocar respostas entre
+    // requisições nem devolver uma requisição como se fosse resposta
+    public static byte[] seal(AESGCM gcm, boolean response, int id, byte[] plaintext) {
+        byte[] iv = new byte[AESGCM.IV_SIZE];
+        NONCES.nextBytes(iv);
+        byte[] body = Arrays.copyOf(iv, AESGCM.IV_SIZE + plaintext.length + AESGCM.TAG_SIZE);
+        gcm.encrypt(iv, sealedAad(response, id), plaintext, 0, plaintext.length, body, AESGCM.IV_SIZE,
+                new byte[AESGCM.SCRATCH_SIZE]);
+        return body;
+    }
+
+    // Lança IllegalArgumentException se o corpo foi alterado, sem devolver nada do texto claro
+    public static byte[] open(AESGCM gcm, boolean response, int id, byte[] body) {
+        if (body.length < AESGCM.IV_SIZE + AESGCM.TAG_SIZE) {
+            throw new IllegalArgumentException("Quadro selado incompleto");
+        }
+        byte[] iv = Arrays.copyOf(body, AESGCM.IV_SIZE);
+        byte[] plaintext = new byte[body.length - AESGCM.IV_SIZE - AESGCM.TAG_SIZE];
+        gcm.decrypt(iv, sealedAad(response, id), body, AESGCM.IV_SIZE, body.length - AESGCM.IV_SIZE, plaintext, 0,
+                new byte[AESGCM.SCRATCH_SIZE]);
+        return plaintext;
+    }
+
+    private static byte[] sealedAad(boolean response, int id) {
+        byte[] aad = new byte[5];
+        putAad(aad, response, id);
+        return aad;
+    }
+
+    // Monta o corpo de um quadro BATCH com todas as mensagens cifradas numa só chamada (ver AES128.encryptBatch)
+    public static byte[] batch(AES128 aes, List<byte[]> plaintexts) {
+        if (plaintexts.isEmpty()) {
+            throw new IllegalArgumentException("O lote deve ter ao menos uma mensagem");
+        }
+        int data = 4 + 4 * plaintexts.size();
+        int length = Math.addExact(data, AES128.batchLength(plaintexts));
+        if (length > MAX_FRAME_LENGTH - 5) {
+            throw new IllegalArgumentException("O lote excede o tamanho máximo de um quadro");
+        }
+        byte[] body = new byte[length];
+        putInt(body, 0, plaintexts.size());
+        for (int i = 0; i < plaintexts.size(); i++) {
+            putInt(body, 4 + 4 * i, AES128.paddedLength(plaintexts.get(i).length));
+        }
+        aes.encryptBatch(plaintexts, body, data);
+        return body;
+    }
+
+    // Decifra no próprio corpo um BATCH de resposta; lança IllegalArgumentException se alguma mensagem foi recusada
+    public static List<byte[]> openBatch(AES128 aes, byte[] body, int len) {
+        int count = batchCount(body, len);
+        int data = 4 + 4 * count;
+        aes.decryptECB(body, data, len - data, body, data);
+        List<byte[]> plaintexts = new ArrayList<>(count);
+        int off = data;
+        for (int i = 0; i < count; i++) {
+            int length = getInt(body, 4 + 4 * i);
+            if (length == 0) {
+                throw new IllegalArgumentException("O servidor recusou a mensagem " + i + " do lote");
+            }
+            plaintexts.add(Arrays.copyOfRange(body, off, off + AES128.unpaddedLength(body, off, length)));
+            off += length;
+        }
+        return plaintexts;
+    }
+
+    // Confere a estrutura do corpo BATCH (tamanhos múltiplos de 16 que somam exatamente o que veio) e
+    // devolve o número de mensagens
+    static int batchCount(byte[] body, int len) {
+        if (len < 4) {
+            throw new IllegalArgumentException("Lote malformado");
+        }
+        int count = getInt(body, 0);
+        if (count <= 0 || count > (len - 4) / 4) {
+            throw new IllegalArgumentException("Lote malformado");
+        }
+        long total = 4 + 4L * count;
+        for (int i = 0; i < count; i++) {
+            int length = getInt(body, 4 + 4 * i);
+            if (length < 0 || length % 16 != 0) {
+                throw new IllegalArgumentException("Lote malformado");
+            }
+            total += length;
+        }
+        if (total != len) {
+            throw new IllegalArgumentException("Lote malformado");
+        }
+        return count;
+    }
+
+    static int getInt(byte[] b, int off) {
+        return (b[off] & 0xFF) << 24 | (b[off + 1] & 0xFF) << 16 | (b[off + 2] & 0xFF) << 8 | (b[off + 3] & 0xFF);
+    }
+
+    static void putInt(byte[] b, int off, int v) {
+        b[off] = (byte) (v >>> 24);
+        b[off + 1] = (byte) (v >>> 16);
+        b[off + 2] = (byte) (v >>> 8);
+        b[off + 3] = (byte) v;
+    }
+
+    private static void putAad(byte[] aad, boolean response, int id) {
+        aad[0] = (byte) (response ? 1 : 0);
+        aad[1] = (byte) (id >>> 24);
+        aad[2] = (byte) (id >>> 16);
+        aad[3] = (byte) (id >>> 8);
+        aad[4] = (byte) id;
+    }
+
+    private static void checkLength(int length) throws IOException {
+        if (length < 5 || length > MAX_FRAME_LENGTH) {
+            throw new IOException("Tamanho de quadro inválido: " + length);
+        }
+    }
+}
@@ -0,0 +1,5 @@
+package com.aes;
+
+// Sessão negociada com o servidor: o id permite retomá-la numa nova conexão sem refazer o acordo de chaves
+public record AESSession(byte[] id, AES128 aes) {
+}
@@ -0,0 +1,172 @@
+package com.aes;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Lado servidor do AESHandshake. Guarda as chaves das sessões recentes (LRU limitado) para que clientes
+// que reconectam retomem a sessão sem novo acordo de chaves; os contextos já expandidos ficam no
+// AESKeyCache. O par de chaves X25519 do servidor é renovado periodicamente em vez de a cada handshake,
+// o que corta pela metade o custo de cada sessão nova.
+public class AESSessionManager {
+    static final int DEFAULT_MAX_SESSIONS = 16384;
+    static final long KEY_PAIR_LIFETIME = TimeUnit.SECONDS.toNanos(60);
+
+    private final int maxSessions;
+    private final AESKeyCache keyCache;
+    private final LinkedHashMap<ByteBuffer, byte[]> sessions;
+    private final SecureRandom random = new SecureRandom();
+    private final AtomicLong handshakes = new AtomicLong();
+    private final AtomicLong resumptions = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private volatile ServerKeys serverKeys;
+
+    private record ServerKeys(KeyPair pair, byte[] encoded, long created) {
+    }
+
+    public AESSessionManager() {
+        this(DEFAULT_MAX_SESSIONS);
+    }
+
+    public AESSessionManager(int maxSessions) {
+        if (maxSessions <= 0) {
+            throw new IllegalArgumentException("O limite de sessões deve ser positivo");
+        }
+        this.maxSessions = maxSessions;
+        this.keyCache = new AESKeyCache(maxSessions);
+        this.sessions = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ByteBuffer, byte[]> eldest) {
+                if (size() <= AESSessionManager.this.maxSessions) {
+                    return false;
+                }
+                discard(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    // Responde a um quadro HELLO ou RESUME e devolve o contexto da sessão, ou null se ela foi recusada. O
+    // contexto vem fixado no AESKeyCache: devolva-o com release quando a conexão deixar de usá-lo.
+    public AES128 accept(AESProtocol.Frame frame, DataOutputStream out) throws IOException {
+        AES128 aes = null;
+        if (frame.type() == AESProtocol.TYPE_HELLO) {
+            aes = handshake(frame.id(), frame.body(), out);
+        } else if (frame.type() == AESProtocol.TYPE_RESUME) {
+            aes = resume(frame.body());
+            if (aes != null) {
+                reply(aes, out, AESProtocol.TYPE_RESUME, frame.id(), new byte[0]);
+            }
+        }
+        if (aes == null) {
+            rejected.incrementAndGet();
+            AESProtocol.writeFrame(out, AESProtocol.TYPE_ERROR, frame.id(), new byte[0]);
+        }
+        return aes;
+    }
+
+    private AES128 handshake(int requestId, byte[] clientPublic, DataOutputStream out) throws IOException {
+        byte[] key;
+        ServerKeys keys;
+        try {
+            keys = serverKeys();
+            key = AESHandshake.deriveKey(keys.pair().getPrivate(), AESHandshake.decodePublicKey(clientPublic),
+                    clientPublic, keys.encoded());
+        } catch (GeneralSecurityException e) {
+            return null;
+        }
+
+        byte[] sessionId = new byte[AESHandshake.SESSION_ID_SIZE];
+        random.nextBytes(sessionId);
+        AES128 aes = keyCache.acquire(key);
+        synchronized (sessions) {
+            sessions.put(ByteBuffer.wrap(sessionId), key);
+        }
+        handshakes.incrementAndGet();
+
+        byte[] reply = Arrays.copyOf(sessionId, sessionId.length + keys.encoded().length);
+        System.arraycopy(keys.encoded(), 0, reply, sessionId.length, keys.encoded().length);
+        reply(aes, out, AESProtocol.TYPE_HELLO, requestId, reply);
+        return aes;
+    }
+
+    // Se a resposta não sai, o chamador nunca recebe o contexto; a fixação é desfeita aqui
+    private void reply(AES128 aes, DataOutputStream out, byte type, int id, byte[] body) throws IOException {
+        try {
+            AESProtocol.writeFrame(out, type, id, body);
+        } catch (IOException e) {
+            keyCache.release(aes);
+            throw e;
+        }
+    }
+
+    // Só a cópia da chave é feita com o lock de sessions: um despejo concorrente zera a chave da sessão,
+    // não a cópia, e uma falta no cache expande fora do lock como no handshake
+    private AES128 resume(byte[] id) {
+        byte[] key;
+        synchronized (sessions) {
+            byte[] stored = sessions.get(ByteBuffer.wrap(id));
+            if (stored == null) {
+                return null;
+            }
+            key = stored.clone();
+        }
+        try {
+            AES128 aes = keyCache.acquire(key);
+            resumptions.incrementAndGet();
+            return aes;
+        } finally {
+            Arrays.fill(key, (byte) 0);
+        }
+    }
+
+    private ServerKeys serverKeys() throws GeneralSecurityException {
+        ServerKeys keys = serverKeys;
+        if (keys == null || System.nanoTime() - keys.created() > KEY_PAIR_LIFETIME) {
+            KeyPair pair = AESHandshake.generateKeyPair();
+            keys = new ServerKeys(pair, pair.getPublic().getEncoded(), System.nanoTime());
+            serverKeys = keys;
+        }
+        return keys;
+    }
+
+    public void release(AES128 aes) {
+        keyCache.release(aes);
+    }
+
+    // Chamado com o lock de sessions
+    private void discard(byte[] key) {
+        keyCache.remove(key);
+        Arrays.fill(key, (byte) 0);
+    }
+
+    public int getSessionCount() {
+        synchronized (sessions) {
+            return sessions.size();
+        }
+    }
+
+    public long getHandshakes() {
+        return handshakes.get();
+    }
+
+    public long getResumptions() {
+        return resumptions.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    public AESKeyCache getKeyCache() {
+        return keyCache;
+    }
+}
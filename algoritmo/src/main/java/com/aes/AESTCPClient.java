@@ -1,12 +1,21 @@
 package com.aes;
 
 import java.io.*;
-import java.net.*;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 public class AESTCPClient extends Thread {
-    private AES128 aes;
-    private String serverHost;
-    private int serverPort;
+    private final AES128 aes;
+    private final String serverHost;
+    private final int serverPort;
+
+    private volatile AESSession session;
+
+    // Negocia uma chave de sessão com o servidor
+    public AESTCPClient(String serverHost, int serverPort) {
+        this(null, serverHost, serverPort);
+    }
 
     public AESTCPClient(AES128 aes, String serverHost, int serverPort) {
         this.aes = aes;
@@ -16,27 +25,28 @@ public class AESTCPClient extends Thread {
 
     @Override
     public void run() {
-        try (Socket socket = new Socket(serverHost, serverPort);
-                DataInputStream in = new DataInputStream(socket.getInputStream());
-                DataOutputStream out = new DataOutputStream(socket.getOutputStream())) {
+        try (AESConnection connection = aes != null
+                ? new AESConnection(aes, serverHost, serverPort)
+                : new AESConnection(serverHost, serverPort, null)) {
 
             System.out.println("Conectado ao servidor.");
+            session = connection.getSession();
 
             String mensagem = "Olá, servidor!";
-            byte[] encryptedMessage = aes.encrypt(mensagem.getBytes());
-
-            out.write(encryptedMessage);
-            out.flush();
+            CompletableFuture<byte[]> response = connection.send(mensagem.getBytes(StandardCharsets.UTF_8));
             System.out.println("Mensagem criptografada enviada ao servidor.");
 
-            byte[] encryptedResponse = new byte[16];
-            in.readFully(encryptedResponse);
+            byte[] decryptedResponse = response.get();
+            System.out.println("Resposta descriptografada do servidor: " + new String(decryptedResponse, StandardCharsets.UTF_8));
 
-            byte[] decryptedResponse = aes.decrypt(encryptedResponse);
-            System.out.println("Resposta descriptografada do servidor: " + new String(decryptedResponse));
-
-        } catch (IOException e) {
+        } catch (IOException | ExecutionException e) {
             System.out.println("Erro no cliente: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
     }
+
+    public AESSession getSession() {
+        return session;
+    }
 }
@@ -1,47 +1,349 @@
 package com.aes;
 
 import java.io.*;
+import java.lang.reflect.Method;
 import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.*;
 
 public class AESTCPServer extends Thread {
-    private AES128 aes;
-    private int port;
+    static final int DEFAULT_MAX_CONNECTIONS = 1024;
+    static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private static final byte[] RESPOSTA = "Olá, cliente!".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] RESPOSTA_COM_PADDING = AES128.pad(RESPOSTA);
+    private static final byte[] EMPTY = new byte[0];
+
+    private final AES128 aes;
+    private final AESSessionManager sessions = new AESSessionManager();
+    private final AESMetrics metrics = new AESMetrics(sessions);
+    private final int port;
+    private final Semaphore permits;
+    private final Set<Socket> activeSockets = ConcurrentHashMap.newKeySet();
+    private final ExecutorService executor;
+    private final BufferPool buffers;
+    private final FrameBudget frameBudget;
+    private volatile ServerSocket serverSocket;
+    private volatile boolean running = true;
+    private volatile boolean verbose;
 
     public AESTCPServer(AES128 aes, int port) {
+        this(aes, port, DEFAULT_MAX_CONNECTIONS);
+    }
+
+    public AESTCPServer(AES128 aes, int port, int maxConnections) {
+        this(aes, port, maxConnections, FrameBudget.SHARED);
+    }
+
+    AESTCPServer(AES128 aes, int port, int maxConnections, FrameBudget frameBudget) {
+        if (maxConnections <= 0) {
+            throw new IllegalArgumentException("O limite de conexões deve ser positivo");
+        }
         this.aes = aes;
         this.port = port;
+        this.permits = new Semaphore(maxConnections);
+        this.executor = newConnectionExecutor(maxConnections);
+        this.buffers = new BufferPool(DEFAULT_BUFFER_SIZE, Math.min(maxConnections, 256), false);
+        this.frameBudget = frameBudget;
+    }
+
+    // Imprime conexões e cada mensagem decifrada; desligado por padrão porque aloca e serializa no console.
+    // Para monitorar em produção use getMetrics().
+    public void setVerbose(boolean verbose) {
+        this.verbose = verbose;
     }
 
     @Override
     public void run() {
         try (ServerSocket serverSocket = new ServerSocket(port)) {
+            this.serverSocket = serverSocket;
+            registerMetrics(serverSocket.getLocalPort());
             System.out.println("Servidor esperando conexão na porta " + port);
 
-            while (true) {
-                try (Socket clientSocket = serverSocket.accept();
-                        DataInputStream in = new DataInputStream(clientSocket.getInputStream());
-                        DataOutputStream out = new DataOutputStream(clientSocket.getOutputStream())) {
+            while (running) {
+                // Com o limite atingido o accept espera; novas conexões ficam no backlog do sistema
+                permits.acquire();
+                Socket clientSocket;
+                try {
+                    clientSocket = serverSocket.accept();
+                } catch (IOException e) {
+                    permits.release();
+                    if (!running) {
+                        break;
+                    }
+                    System.out.println("Erro ao aceitar conexão: " + e.getMessage());
+                    continue;
+                }
 
-                    System.out.println("Cliente conectado.");
+                activeSockets.add(clientSocket);
+                try {
+                    executor.execute(() -> handle(clientSocket));
+                } catch (RejectedExecutionException e) {
+                    release(clientSocket);
+                    // Abaixo do limite o executor sempre aceita; recusa fora do shutdown é defeito, não carga
+                    if (running) {
+                        throw new IllegalStateException("Executor recusou uma conexão dentro do limite", e);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Erro no servidor: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            metrics.unregister();
+        }
+    }
 
-                    byte[] encryptedMessage = new byte[16];
-                    in.readFully(encryptedMessage);
+    // Falha no JMX não impede o servidor de atender
+    private void registerMetrics(int localPort) {
+        try {
+            metrics.register("AESTCPServer-" + localPort);
+        } catch (IllegalStateException e) {
+            System.out.println(e.getMessage());
+        }
+    }
 
-                    byte[] decryptedMessage = aes.decrypt(encryptedMessage);
-                    System.out.println("Mensagem descriptografada: " + new String(decryptedMessage));
+    // Atende quadros em sequência até o cliente fechar; as respostas são acumuladas e enviadas
+    // num único flush quando não há mais requisições já recebidas esperando. Cada quadro é decifrado
+    // no buffer da conexão (tirado do pool) e a resposta é cifrada no mesmo buffer: no regime
+    // permanente nada é alocado por mensagem. Quadros maiores que o buffer dependem do FrameBudget comum
+    // aos servidores; sem orçamento, ou acima do limite do protocolo, o cliente recebe ERROR e a conexão fecha.
+    private void handle(Socket clientSocket) {
+        ByteBuffer buffer = buffers.acquire();
+        AESProtocol.FrameReader frame = new AESProtocol.FrameReader(buffer.array(), frameBudget);
+        AES128 session = aes;
+        metrics.connectionOpened();
+        try (clientSocket;
+                DataInputStream in = new DataInputStream(new BufferedInputStream(clientSocket.getInputStream()));
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(clientSocket.getOutputStream()))) {
 
-                    String resposta = "Olá, cliente!";
-                    byte[] encryptedResponse = aes.encrypt(resposta.getBytes());
-                    out.write(encryptedResponse);
-                    out.flush();
+            if (verbose) {
+                System.out.println("Cliente conectado.");
+            }
 
-                    System.out.println("Resposta criptografada enviada ao cliente.");
-                } catch (IOException e) {
-                    System.out.println("Erro na conexão com o cliente: " + e.getMessage());
+            // Sem handshake a conexão usa a chave fixa do servidor; uma sessão negociada fica fixada no cache
+            // de chaves até ser trocada ou a conexão terminar
+            session = aes;
+            AESProtocol.Sealer sealer = null;
+            while (frame.read(in)) {
+                byte type = frame.type();
+                if (frame.refused()) {
+                    metrics.protocolError();
+                    AESProtocol.writeFrame(out, AESProtocol.TYPE_ERROR, frame.id(), EMPTY);
+                    break;
+                }
+                if (type == AESProtocol.TYPE_MESSAGE) {
+                    handleMessage(session, frame, out);
+                } else if (type == AESProtocol.TYPE_SEALED) {
+                    if (sealer == null) {
+                        sealer = new AESProtocol.Sealer(new AESGCM(session));
+                    }
+                    handleSealed(sealer, frame, out);
+                } else if (type == AESProtocol.TYPE_BATCH) {
+                    handleBatch(session, frame, out);
+                } else if (type == AESProtocol.TYPE_HELLO || type == AESProtocol.TYPE_RESUME) {
+                    byte[] body = Arrays.copyOf(frame.body(), frame.length());
+                    AES128 negotiated = sessions.accept(new AESProtocol.Frame(type, frame.id(), body), out);
+                    if (negotiated != null) {
+                        if (session != aes) {
+                            sessions.release(session);
+                        }
+                        session = negotiated;
+                        sealer = null;
+                    }
+                } else {
+                    metrics.protocolError();
+                    AESProtocol.writeFrame(out, AESProtocol.TYPE_ERROR, frame.id(), EMPTY);
+                }
+
+                if (in.available() == 0) {
+                    out.flush();
                 }
             }
+            out.flush();
         } catch (IOException e) {
-            System.out.println("Erro no servidor: " + e.getMessage());
+            metrics.ioError();
+            System.out.println("Erro na conexão com o cliente: " + e.getMessage());
+        } finally {
+            if (session != aes) {
+                sessions.release(session);
+            }
+            metrics.connectionClosed();
+            frame.release();
+            buffers.release(buffer);
+            release(clientSocket);
+        }
+    }
+
+    private void handleMessage(AES128 aes, AESProtocol.FrameReader frame, DataOutputStream out) throws IOException {
+        byte[] body = frame.body();
+        int length;
+        long start = System.nanoTime();
+        try {
+            length = aes.decryptPadded(body, 0, frame.length(), body, 0);
+        } catch (IllegalArgumentException e) {
+            metrics.authenticationFailure();
+            AESProtocol.writeFrame(out, AESProtocol.TYPE_ERROR, frame.id(), EMPTY);
+            return;
+        }
+        metrics.decrypted(frame.length(), System.nanoTime() - start);
+        if (verbose) {
+            System.out.println("Mensagem descriptografada: " + new String(body, 0, length, StandardCharsets.UTF_8));
+        }
+
+        // O corpo já foi consumido, então a resposta é cifrada no mesmo buffer
+        long encrypting = System.nanoTime();
+        int responseLength = aes.encryptPadded(RESPOSTA, 0, RESPOSTA.length, body, 0);
+        metrics.encrypted(responseLength, System.nanoTime() - encrypting);
+        AESProtocol.writeFrame(out, AESProtocol.TYPE_MESSAGE, frame.id(), body, 0, responseLength);
+    }
+
+    // A tag é conferida antes de qualquer uso do conteúdo: quadros adulterados viram ERROR
+    private void handleSealed(AESProtocol.Sealer sealer, AESProtocol.FrameReader frame, DataOutputStream out)
+            throws IOException {
+        byte[] body = frame.body();
+        int length;
+        long start = System.nanoTime();
+        try {
+            length = sealer.open(false, frame.id(), body, frame.length());
+        } catch (IllegalArgumentException e) {
+            metrics.authenticationFailure();
+            AESProtocol.writeFrame(out, AESProtocol.TYPE_ERROR, frame.id(), EMPTY);
+            return;
+        }
+        metrics.decrypted(frame.length(), System.nanoTime() - start);
+        if (verbose) {
+            System.out.println("Mensagem autenticada: "
+                    + new String(body, AESGCM.IV_SIZE, length, StandardCharsets.UTF_8));
+        }
+
+        long encrypting = System.nanoTime();
+        int responseLength = sealer.seal(true, frame.id(), RESPOSTA, 0, RESPOSTA.length, body, 0);
+        metrics.encrypted(responseLength, System.nanoTime() - encrypting);
+        AESProtocol.writeFrame(out, AESProtocol.TYPE_SEALED, frame.id(), body, 0, responseLength);
+    }
+
+    // O lote inteiro é decifrado numa só chamada ao motor e respondido num único quadro. A resposta de cada
+    // mensagem (16 bytes) não passa do tamanho da requisição (ao menos 16 bytes), então o lote de respostas
+    // é montado no próprio corpo, por cima das requisições já consumidas.
+    private void handleBatch(AES128 aes, AESProtocol.FrameReader frame, DataOutputStream out) throws IOException {
+        byte[] body = frame.body();
+        int count;
+        try {
+            count = AESProtocol.batchCount(body, frame.length());
+        } catch (IllegalArgumentException e) {
+            metrics.protocolError();
+            AESProtocol.writeFrame(out, AESProtocol.TYPE_ERROR, frame.id(), EMPTY);
+            return;
+        }
+        int data = 4 + 4 * count;
+        long start = System.nanoTime();
+        aes.decryptECB(body, data, frame.length() - data, body, data);
+        long elapsed = System.nanoTime() - start;
+
+        // Mensagens com padding inválido ficam com tamanho 0 e não recebem resposta
+        int accepted = 0;
+        int off = data;
+        for (int i = 0; i < count; i++) {
+            int length = AESProtocol.getInt(body, 4 + 4 * i);
+            try {
+                if (length == 0) {
+                    throw new IllegalArgumentException("Mensagem vazia no lote");
+                }
+                int plain = AES128.unpaddedLength(body, off, length);
+                if (verbose) {
+                    System.out.println("Mensagem do lote: " + new String(body, off, plain, StandardCharsets.UTF_8));
+                }
+                accepted++;
+            } catch (IllegalArgumentException e) {
+                metrics.authenticationFailure();
+                AESProtocol.putInt(body, 4 + 4 * i, 0);
+            }
+            off += length;
+        }
+        metrics.decrypted(accepted, frame.length() - data, elapsed);
+
+        long encrypting = System.nanoTime();
+        int end = data;
+        for (int i = 0; i < count; i++) {
+            if (AESProtocol.getInt(body, 4 + 4 * i) != 0) {
+                System.arraycopy(RESPOSTA_COM_PADDING, 0, body, end, RESPOSTA_COM_PADDING.length);
+                AESProtocol.putInt(body, 4 + 4 * i, RESPOSTA_COM_PADDING.length);
+                end += RESPOSTA_COM_PADDING.length;
+            }
+        }
+        aes.encryptECB(body, data, end - data, body, data);
+        metrics.encrypted(accepted, end - data, System.nanoTime() - encrypting);
+        AESProtocol.writeFrame(out, AESProtocol.TYPE_BATCH, frame.id(), body, 0, end);
+    }
+
+    private void release(Socket clientSocket) {
+        if (activeSockets.remove(clientSocket)) {
+            closeQuietly(clientSocket);
+            permits.release();
+        }
+    }
+
+    public int getActiveConnections() {
+        return activeSockets.size();
+    }
+
+    public AESMetrics getMetrics() {
+        return metrics;
+    }
+
+    public AESSessionManager getSessionManager() {
+        return sessions;
+    }
+
+    // Para de aceitar conexões, espera as que estão em andamento e fecha à força as que passarem do prazo
+    public void shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        running = false;
+        ServerSocket socket = serverSocket;
+        if (socket != null) {
+            closeQuietly(socket);
+        }
+        interrupt();
+        executor.shutdown();
+        if (!executor.awaitTermination(timeout, unit)) {
+            for (Socket clientSocket : activeSockets) {
+                closeQuietly(clientSocket);
+            }
+            executor.shutdownNow();
+            executor.awaitTermination(timeout, unit);
+        }
+        join(unit.toMillis(timeout));
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    // Usa uma thread virtual por conexão quando a JVM oferece (Java 21+); senão, um pool fixo do tamanho do
+    // máximo de conexões. A fila sem limite é necessária: a permissão é devolvida no fim de handle, antes
+    // de a thread voltar ao pool, e uma conexão aceita nesse intervalo espera na fila em vez de ser recusada.
+    // O semáforo já impede que a fila passe de maxConnections tarefas.
+    private static ExecutorService newConnectionExecutor(int maxConnections) {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            ThreadFactory threads = runnable -> {
+                Thread thread = new Thread(runnable, "aes-conexao");
+                thread.setDaemon(true);
+                return thread;
+            };
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(maxConnections, maxConnections, 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), threads);
+            pool.allowCoreThreadTimeOut(true);
+            return pool;
         }
     }
 }
@@ -0,0 +1,472 @@
+package com.aes;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+// Implementação bitsliced em tempo constante: 4 blocos são processados juntos em 8 longs, um por bit de
+// cada byte (q[b] guarda o bit b dos 64 bytes). O bit do byte da linha r, coluna c do bloco blk fica na
+// posição 16r + 8(c & 1) + 4(c >> 1) + blk, de modo que ShiftRows vira deslocamentos dentro de cada trecho
+// de 16 bits e MixColumns vira rotação do long inteiro. A S-box é o circuito de Boyar-Peralta, sem tabelas
+// indexadas por dados secretos. O estado fica todo em variáveis locais, sem alocação por chamada.
+// Em escalar não supera as T-tables; o ganho de vazão vem do VectorEngine (src/vector, perfil Maven vector),
+// que roda este mesmo circuito em vários lotes de 4 blocos por instrução. Este motor é o reserva dele.
+class BitslicedEngine implements BlockEngine {
+    static final int LANES = 4;
+
+    private static final int Nr = AES128.Nr;
+
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle BUFFER_LONGS =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    // Cada palavra de rodada vira 8 planos de bits repetidos nas 4 faixas, guardados como pares de int
+    @Override
+    public int[] prepareKey(int[] w) {
+        int[] rk = new int[(Nr + 1) * 16];
+        for (int round = 0; round <= Nr; round++) {
+            for (int b = 0; b < 8; b++) {
+                long plane = 0;
+                for (int c = 0; c < 4; c++) {
+                    int word = w[round * 4 + c];
+                    for (int r = 0; r < 4; r++) {
+                        long bit = (word >>> (24 - 8 * r + b)) & 1;
+                        plane |= (bit * 0xF) << (r * 16 + (c & 1) * 8 + (c >> 1) * 4);
+                    }
+                }
+                rk[(round * 8 + b) * 2] = (int) (plane >>> 32);
+                rk[(round * 8 + b) * 2 + 1] = (int) plane;
+            }
+        }
+        return rk;
+    }
+
+    @Override
+    public void encryptBlock(int[] rk, byte[] in, int inOff, byte[] out, int outOff) {
+        crypt(rk, false, in, null, inOff, out, null, outOff, 1);
+    }
+
+    @Override
+    public void decryptBlock(int[] rk, byte[] in, int inOff, byte[] out, int outOff) {
+        crypt(rk, true, in, null, inOff, out, null, outOff, 1);
+    }
+
+    @Override
+    public void encryptBlock(int[] rk, ByteBuffer in, int inOff, ByteBuffer out, int outOff) {
+        crypt(rk, false, null, in, inOff, null, out, outOff, 1);
+    }
+
+    @Override
+    public void decryptBlock(int[] rk, ByteBuffer in, int inOff, ByteBuffer out, int outOff) {
+        crypt(rk, true, null, in, inOff, null, out, outOff, 1);
+    }
+
+    @Override
+    public void encryptBlocks(int[] rk, byte[] in, int inOff, byte[] out, int outOff, int blocks) {
+        for (int i = 0; i < blocks; i += LANES) {
+            crypt(rk, false, in, null, inOff + 16 * i, out, null, outOff + 16 * i, Math.min(LANES, blocks - i));
+        }
+    }
+
+    @Override
+    public void decryptBlocks(int[] rk, byte[] in, int inOff, byte[] out, int outOff, int blocks) {
+        for (int i = 0; i < blocks; i += LANES) {
+            crypt(rk, true, in, null, inOff + 16 * i, out, null, outOff + 16 * i, Math.min(LANES, blocks - i));
+        }
+    }
+
+    // Cifra (ou, com inverse, decifra pela cifra inversa equivalente) até 4 blocos. Origem e destino são
+    // um byte[] ou um ByteBuffer, o outro fica null; faixas sem bloco entram zeradas e não são gravadas.
+    private static void crypt(int[] rk, boolean inverse, byte[] in, ByteBuffer inBuffer, int inOff,
+            byte[] out, ByteBuffer outBuffer, int outOff, int blocks) {
+        // q[k] começa como a metade k >> 2 do bloco k & 3, com os bytes em ordem de linha
+        long q0 = load(in, inBuffer, inOff, blocks, 0), q1 = load(in, inBuffer, inOff, blocks, 1);
+        long q2 = load(in, inBuffer, inOff, blocks, 2), q3 = load(in, inBuffer, inOff, blocks, 3);
+        long q4 = load(in, inBuffer, inOff, blocks, 4), q5 = load(in, inBuffer, inOff, blocks, 5);
+        long q6 = load(in, inBuffer, inOff, blocks, 6), q7 = load(in, inBuffer, inOff, blocks, 7);
+
+        // Transposição 8x8 de bits entre as palavras: o bit b do byte j de q[k] vai ao bit k do byte j de q[b]
+        long t;
+        t = ((q0 >>> 1) ^ q1) & 0x5555555555555555L;
+        q1 ^= t;
+        q0 ^= t << 1;
+        t = ((q2 >>> 1) ^ q3) & 0x5555555555555555L;
+        q3 ^= t;
+        q2 ^= t << 1;
+        t = ((q4 >>> 1) ^ q5) & 0x5555555555555555L;
+        q5 ^= t;
+        q4 ^= t << 1;
+        t = ((q6 >>> 1) ^ q7) & 0x5555555555555555L;
+        q7 ^= t;
+        q6 ^= t << 1;
+        t = ((q0 >>> 2) ^ q2) & 0x3333333333333333L;
+        q2 ^= t;
+        q0 ^= t << 2;
+        t = ((q1 >>> 2) ^ q3) & 0x3333333333333333L;
+        q3 ^= t;
+        q1 ^= t << 2;
+        t = ((q4 >>> 2) ^ q6) & 0x3333333333333333L;
+        q6 ^= t;
+        q4 ^= t << 2;
+        t = ((q5 >>> 2) ^ q7) & 0x3333333333333333L;
+        q7 ^= t;
+        q5 ^= t << 2;
+        t = ((q0 >>> 4) ^ q4) & 0x0F0F0F0F0F0F0F0FL;
+        q4 ^= t;
+        q0 ^= t << 4;
+        t = ((q1 >>> 4) ^ q5) & 0x0F0F0F0F0F0F0F0FL;
+        q5 ^= t;
+        q1 ^= t << 4;
+        t = ((q2 >>> 4) ^ q6) & 0x0F0F0F0F0F0F0F0FL;
+        q6 ^= t;
+        q2 ^= t << 4;
+        t = ((q3 >>> 4) ^ q7) & 0x0F0F0F0F0F0F0F0FL;
+        q7 ^= t;
+        q3 ^= t << 4;
+
+        for (int round = 0; ; round++) {
+            q0 ^= roundKey(rk, round, 0);
+            q1 ^= roundKey(rk, round, 1);
+            q2 ^= roundKey(rk, round, 2);
+            q3 ^= roundKey(rk, round, 3);
+            q4 ^= roundKey(rk, round, 4);
+            q5 ^= roundKey(rk, round, 5);
+            q6 ^= roundKey(rk, round, 6);
+            q7 ^= roundKey(rk, round, 7);
+            if (round == Nr) {
+                break;
+            }
+
+            // S-box nos 8 planos. O VectorEngine (perfil vector) é gerado a partir do trecho entre os
+            // marcadores, então ele só pode ter declarações long e expressões com ^, & e ~.
+            // início do circuito da S-box
+            // A S-box inversa é a direta entre duas transformações afins inversas
+            long x0, x1, x2, x3, x4, x5, x6, x7;
+            if (inverse) {
+                x0 = q1 ^ q4 ^ q6;
+                x1 = q0 ^ q3 ^ q5;
+                x2 = q7 ^ q2 ^ q4;
+                x3 = q6 ^ q1 ^ q3;
+                x4 = q5 ^ q0 ^ q2;
+                x5 = ~(q4 ^ q7 ^ q1);
+                x6 = q3 ^ q6 ^ q0;
+                x7 = ~(q2 ^ q5 ^ q7);
+            } else {
+                x0 = q7;
+                x1 = q6;
+                x2 = q5;
+                x3 = q4;
+                x4 = q3;
+                x5 = q2;
+                x6 = q1;
+                x7 = q0;
+            }
+
+            // Transformação linear de entrada
+            long y14 = x3 ^ x5;
+            long y13 = x0 ^ x6;
+            long y9 = x0 ^ x3;
+            long y8 = x0 ^ x5;
+            long t0 = x1 ^ x2;
+            long y1 = t0 ^ x7;
+            long y4 = y1 ^ x3;
+            long y12 = y13 ^ y14;
+            long y2 = y1 ^ x0;
+            long y5 = y1 ^ x6;
+            long y3 = y5 ^ y8;
+            long t1 = x4 ^ y12;
+            long y15 = t1 ^ x5;
+            long y20 = t1 ^ x1;
+            long y6 = y15 ^ x7;
+            long y10 = y15 ^ t0;
+            long y11 = y20 ^ y9;
+            long y7 = x7 ^ y11;
+            long y17 = y10 ^ y11;
+            long y19 = y10 ^ y8;
+            long y16 = t0 ^ y11;
+            long y21 = y13 ^ y16;
+            long y18 = x0 ^ y16;
+
+            // Parte não linear (inversão em GF(2^8) via GF(2^4))
+            long t2 = y12 & y15;
+            long t3 = y3 & y6;
+            long t4 = t3 ^ t2;
+            long t5 = y4 & x7;
+            long t6 = t5 ^ t2;
+            long t7 = y13 & y16;
+            long t8 = y5 & y1;
+            long t9 = t8 ^ t7;
+            long t10 = y2 & y7;
+            long t11 = t10 ^ t7;
+            long t12 = y9 & y11;
+            long t13 = y14 & y17;
+            long t14 = t13 ^ t12;
+            long t15 = y8 & y10;
+            long t16 = t15 ^ t12;
+            long t17 = t4 ^ t14;
+            long t18 = t6 ^ t16;
+            long t19 = t9 ^ t14;
+            long t20 = t11 ^ t16;
+            long t21 = t17 ^ y20;
+            long t22 = t18 ^ y19;
+            long t23 = t19 ^ y21;
+            long t24 = t20 ^ y18;
+
+            long t25 = t21 ^ t22;
+            long t26 = t21 & t23;
+            long t27 = t24 ^ t26;
+            long t28 = t25 & t27;
+            long t29 = t28 ^ t22;
+            long t30 = t23 ^ t24;
+            long t31 = t22 ^ t26;
+            long t32 = t31 & t30;
+            long t33 = t32 ^ t24;
+            long t34 = t23 ^ t33;
+            long t35 = t27 ^ t33;
+            long t36 = t24 & t35;
+            long t37 = t36 ^ t34;
+            long t38 = t27 ^ t36;
+            long t39 = t29 & t38;
+            long t40 = t25 ^ t39;
+
+            long t41 = t40 ^ t37;
+            long t42 = t29 ^ t33;
+            long t43 = t29 ^ t40;
+            long t44 = t33 ^ t37;
+            long t45 = t42 ^ t41;
+            long z0 = t44 & y15;
+            long z1 = t37 & y6;
+            long z2 = t33 & x7;
+            long z3 = t43 & y16;
+            long z4 = t40 & y1;
+            long z5 = t29 & y7;
+            long z6 = t42 & y11;
+            long z7 = t45 & y17;
+            long z8 = t41 & y10;
+            long z9 = t44 & y12;
+            long z10 = t37 & y3;
+            long z11 = t33 & y4;
+            long z12 = t43 & y13;
+            long z13 = t40 & y5;
+            long z14 = t29 & y2;
+            long z15 = t42 & y9;
+            long z16 = t45 & y14;
+            long z17 = t41 & y8;
+
+            // Transformação linear de saída
+            long t46 = z15 ^ z16;
+            long t47 = z10 ^ z11;
+            long t48 = z5 ^ z13;
+            long t49 = z9 ^ z10;
+            long t50 = z2 ^ z12;
+            long t51 = z2 ^ z5;
+            long t52 = z7 ^ z8;
+            long t53 = z0 ^ z3;
+            long t54 = z6 ^ z7;
+            long t55 = z16 ^ z17;
+            long t56 = z12 ^ t48;
+            long t57 = t50 ^ t53;
+            long t58 = z4 ^ t46;
+            long t59 = z3 ^ t54;
+            long t60 = t46 ^ t57;
+            long t61 = z14 ^ t57;
+            long t62 = t52 ^ t58;
+            long t63 = t49 ^ t58;
+            long t64 = z4 ^ t59;
+            long t65 = t61 ^ t62;
+            long t66 = z1 ^ t63;
+            long s0 = t59 ^ t63;
+            long s6 = t56 ^ ~t62;
+            long s7 = t48 ^ ~t60;
+            long t67 = t64 ^ t65;
+            long s3 = t53 ^ t66;
+            long s4 = t51 ^ t66;
+            long s5 = t47 ^ t65;
+            long s1 = t64 ^ ~s3;
+            long s2 = t55 ^ ~t67;
+
+            if (inverse) {
+                q7 = s6 ^ s3 ^ s1;
+                q6 = s7 ^ s4 ^ s2;
+                q5 = s0 ^ s5 ^ s3;
+                q4 = s1 ^ s6 ^ s4;
+                q3 = s2 ^ s7 ^ s5;
+                q2 = ~(s3 ^ s0 ^ s6);
+                q1 = s4 ^ s1 ^ s7;
+                q0 = ~(s5 ^ s2 ^ s0);
+            } else {
+                q0 = s7;
+                q1 = s6;
+                q2 = s5;
+                q3 = s4;
+                q4 = s3;
+                q5 = s2;
+                q6 = s1;
+                q7 = s0;
+            }
+            // fim do circuito da S-box
+
+            if (inverse) {
+                q0 = invShiftRows(q0);
+                q1 = invShiftRows(q1);
+                q2 = invShiftRows(q2);
+                q3 = invShiftRows(q3);
+                q4 = invShiftRows(q4);
+                q5 = invShiftRows(q5);
+                q6 = invShiftRows(q6);
+                q7 = invShiftRows(q7);
+            } else {
+                q0 = shiftRows(q0);
+                q1 = shiftRows(q1);
+                q2 = shiftRows(q2);
+                q3 = shiftRows(q3);
+                q4 = shiftRows(q4);
+                q5 = shiftRows(q5);
+                q6 = shiftRows(q6);
+                q7 = shiftRows(q7);
+            }
+            if (round == Nr - 1) {
+                continue;
+            }
+
+            // InvMixColumns = MixColumns após multiplicar cada coluna por 05·a_r ^ 04·a_r+2; 4·u = xtime(xtime(u))
+            if (inverse) {
+                long u0 = q0 ^ Long.rotateRight(q0, 32), u1 = q1 ^ Long.rotateRight(q1, 32);
+                long u2 = q2 ^ Long.rotateRight(q2, 32), u3 = q3 ^ Long.rotateRight(q3, 32);
+                long u4 = q4 ^ Long.rotateRight(q4, 32), u5 = q5 ^ Long.rotateRight(q5, 32);
+                long u6 = q6 ^ Long.rotateRight(q6, 32), u7 = q7 ^ Long.rotateRight(q7, 32);
+                q0 ^= u6;
+                q1 ^= u6 ^ u7;
+                q2 ^= u0 ^ u7;
+                q3 ^= u1 ^ u6;
+                q4 ^= u2 ^ u6 ^ u7;
+                q5 ^= u3 ^ u7;
+                q6 ^= u4;
+                q7 ^= u5;
+            }
+
+            // b_r = 2·(a_r ^ a_r+1) ^ a_r+1 ^ a_r+2 ^ a_r+3; girar 16 bits traz a linha seguinte da mesma
+            // coluna, e xtime(t) em planos de bits desloca um bit e reduz por 0x1b (bits 0, 1, 3 e 4)
+            long r0 = Long.rotateRight(q0, 16), r1 = Long.rotateRight(q1, 16);
+            long r2 = Long.rotateRight(q2, 16), r3 = Long.rotateRight(q3, 16);
+            long r4 = Long.rotateRight(q4, 16), r5 = Long.rotateRight(q5, 16);
+            long r6 = Long.rotateRight(q6, 16), r7 = Long.rotateRight(q7, 16);
+            long m0 = q0 ^ r0, m1 = q1 ^ r1, m2 = q2 ^ r2, m3 = q3 ^ r3;
+            long m4 = q4 ^ r4, m5 = q5 ^ r5, m6 = q6 ^ r6, m7 = q7 ^ r7;
+            q0 = m7 ^ r0 ^ Long.rotateRight(m0, 32);
+            q1 = m0 ^ m7 ^ r1 ^ Long.rotateRight(m1, 32);
+            q2 = m1 ^ r2 ^ Long.rotateRight(m2, 32);
+            q3 = m2 ^ m7 ^ r3 ^ Long.rotateRight(m3, 32);
+            q4 = m3 ^ m7 ^ r4 ^ Long.rotateRight(m4, 32);
+            q5 = m4 ^ r5 ^ Long.rotateRight(m5, 32);
+            q6 = m5 ^ r6 ^ Long.rotateRight(m6, 32);
+            q7 = m6 ^ r7 ^ Long.rotateRight(m7, 32);
+        }
+
+        // A transposição é uma involução: a mesma sequência volta às metades de bloco
+        t = ((q0 >>> 1) ^ q1) & 0x5555555555555555L;
+        q1 ^= t;
+        q0 ^= t << 1;
+        t = ((q2 >>> 1) ^ q3) & 0x5555555555555555L;
+        q3 ^= t;
+        q2 ^= t << 1;
+        t = ((q4 >>> 1) ^ q5) & 0x5555555555555555L;
+        q5 ^= t;
+        q4 ^= t << 1;
+        t = ((q6 >>> 1) ^ q7) & 0x5555555555555555L;
+        q7 ^= t;
+        q6 ^= t << 1;
+        t = ((q0 >>> 2) ^ q2) & 0x3333333333333333L;
+        q2 ^= t;
+        q0 ^= t << 2;
+        t = ((q1 >>> 2) ^ q3) & 0x3333333333333333L;
+        q3 ^= t;
+        q1 ^= t << 2;
+        t = ((q4 >>> 2) ^ q6) & 0x3333333333333333L;
+        q6 ^= t;
+        q4 ^= t << 2;
+        t = ((q5 >>> 2) ^ q7) & 0x3333333333333333L;
+        q7 ^= t;
+        q5 ^= t << 2;
+        t = ((q0 >>> 4) ^ q4) & 0x0F0F0F0F0F0F0F0FL;
+        q4 ^= t;
+        q0 ^= t << 4;
+        t = ((q1 >>> 4) ^ q5) & 0x0F0F0F0F0F0F0F0FL;
+        q5 ^= t;
+        q1 ^= t << 4;
+        t = ((q2 >>> 4) ^ q6) & 0x0F0F0F0F0F0F0F0FL;
+        q6 ^= t;
+        q2 ^= t << 4;
+        t = ((q3 >>> 4) ^ q7) & 0x0F0F0F0F0F0F0F0FL;
+        q7 ^= t;
+        q3 ^= t << 4;
+
+        store(q0, out, outBuffer, outOff, blocks, 0);
+        store(q1, out, outBuffer, outOff, blocks, 1);
+        store(q2, out, outBuffer, outOff, blocks, 2);
+        store(q3, out, outBuffer, outOff, blocks, 3);
+        store(q4, out, outBuffer, outOff, blocks, 4);
+        store(q5, out, outBuffer, outOff, blocks, 5);
+        store(q6, out, outBuffer, outOff, blocks, 6);
+        store(q7, out, outBuffer, outOff, blocks, 7);
+    }
+
+    static long roundKey(int[] rk, int round, int b) {
+        int i = (round * 8 + b) * 2;
+        return (long) rk[i] << 32 | (rk[i + 1] & 0xFFFFFFFFL);
+    }
+
+    // Linha r gira r colunas para a esquerda; as colunas de cada trecho de 16 bits estão na ordem 0, 2, 1, 3
+    static long shiftRows(long x) {
+        return (x & 0x000000000000FFFFL)
+                | ((x >>> 12) & 0x000F000000000000L) | ((x >>> 8) & 0x0000000000FF0000L)
+                | ((x >>> 4) & 0x00F00F0F00000000L) | ((x << 4) & 0x0000F0F00F000000L)
+                | ((x << 8) & 0xFF00000000000000L) | ((x << 12) & 0x00000000F0000000L);
+    }
+
+    static long invShiftRows(long x) {
+        return (x & 0x000000000000FFFFL)
+                | ((x >>> 12) & 0x00000000000F0000L) | ((x >>> 8) & 0x00FF000000000000L)
+                | ((x >>> 4) & 0x00000F0F00F00000L) | ((x << 4) & 0x0F00F0F000000000L)
+                | ((x << 8) & 0x00000000FF000000L) | ((x << 12) & 0xF000000000000000L);
+    }
+
+    // Palavra k: metade k >> 2 do bloco k & 3, lida em little-endian; blocos ausentes entram zerados
+    private static long load(byte[] in, ByteBuffer inBuffer, int off, int blocks, int k) {
+        int blk = k & 3;
+        if (blk >= blocks) {
+            return 0;
+        }
+        int i = off + 16 * blk + 8 * (k >> 2);
+        return toRows(in != null ? (long) LONGS.get(in, i) : (long) BUFFER_LONGS.get(inBuffer, i));
+    }
+
+    private static void store(long x, byte[] out, ByteBuffer outBuffer, int off, int blocks, int k) {
+        int blk = k & 3;
+        if (blk >= blocks) {
+            return;
+        }
+        int i = off + 16 * blk + 8 * (k >> 2);
+        if (out != null) {
+            LONGS.set(out, i, fromRows(x));
+        } else {
+            BUFFER_LONGS.set(outBuffer, i, fromRows(x));
+        }
+    }
+
+    // Numa metade de bloco o byte da coluna c, linha r está em 4c + r; toRows o leva a 2r + c
+    static long toRows(long x) {
+        long t = (x ^ (x >>> 16)) & 0x00000000FFFF0000L;
+        x ^= t ^ (t << 16);
+        t = (x ^ (x >>> 8)) & 0x0000FF000000FF00L;
+        return x ^ t ^ (t << 8);
+    }
+
+    static long fromRows(long x) {
+        long t = (x ^ (x >>> 8)) & 0x0000FF000000FF00L;
+        x ^= t ^ (t << 8);
+        t = (x ^ (x >>> 16)) & 0x00000000FFFF0000L;
+        return x ^ t ^ (t << 16);
+    }
+}
@@ -0,0 +1,35 @@
+package com.aes;
+
+import java.nio.ByteBuffer;
+
+// Função de bloco do AES-128: cifra/decifra 16 bytes com um escalonamento de chaves já expandido.
+// Implementações não guardam estado mutável e podem ser chamadas por várias threads ao mesmo tempo.
+interface BlockEngine {
+    void encryptBlock(int[] rk, byte[] in, int inOff, byte[] out, int outOff);
+
+    void decryptBlock(int[] rk, byte[] in, int inOff, byte[] out, int outOff);
+
+    // Variantes por índice absoluto: não alteram position/limit e funcionam com buffers diretos sem cópia
+    void encryptBlock(int[] rk, ByteBuffer in, int inOff, ByteBuffer out, int outOff);
+
+    void decryptBlock(int[] rk, ByteBuffer in, int inOff, ByteBuffer out, int outOff);
+
+    // Converte o escalonamento em palavras de 32 bits para o formato que a implementação consome;
+    // chamado uma vez por chave, na construção do AES128
+    default int[] prepareKey(int[] w) {
+        return w;
+    }
+
+    // Blocos consecutivos em uma chamada; implementações que processam vários blocos juntos sobrescrevem
+    default void encryptBlocks(int[] rk, byte[] in, int inOff, byte[] out, int outOff, int blocks) {
+        for (int i = 0; i < blocks; i++) {
+            encryptBlock(rk, in, inOff + 16 * i, out, outOff + 16 * i);
+        }
+    }
+
+    default void decryptBlocks(int[] rk, byte[] in, int inOff, byte[] out, int outOff, int blocks) {
+        for (int i = 0; i < blocks; i++) {
+            decryptBlock(rk, in, inOff + 16 * i, out, outOff + 16 * i);
+        }
+    }
+}
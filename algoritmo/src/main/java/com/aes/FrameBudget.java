@@ -0,0 +1,43 @@
+package com.aes;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Memória para corpos de quadro maiores que o buffer normal de uma conexão, dividida por todas as conexões
+// dos servidores. O protocolo aceita quadros de até MAX_FRAME_LENGTH (16 MB); sem um teto comum, 1024
+// conexões anunciando quadros grandes prenderiam 16 GB. Quem não consegue reservar responde ERROR e fecha.
+final class FrameBudget {
+    static final long DEFAULT_BYTES = 64L * 1024 * 1024;
+
+    // Usado por AESTCPServer e AESNIOServer quando nenhum outro é informado
+    static final FrameBudget SHARED = new FrameBudget(DEFAULT_BYTES);
+
+    private final long limit;
+    private final AtomicLong used = new AtomicLong();
+
+    FrameBudget(long limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("O orçamento de quadros deve ser positivo");
+        }
+        this.limit = limit;
+    }
+
+    boolean reserve(long bytes) {
+        if (used.addAndGet(bytes) > limit) {
+            used.addAndGet(-bytes);
+            return false;
+        }
+        return true;
+    }
+
+    void release(long bytes) {
+        used.addAndGet(-bytes);
+    }
+
+    long used() {
+        return used.get();
+    }
+
+    long limit() {
+        return limit;
+    }
+}
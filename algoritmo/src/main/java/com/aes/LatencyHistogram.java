@@ -0,0 +1,155 @@
+package com.aes;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Histograma de latências em nanossegundos no estilo do HdrHistogram: cada potência de 2 é dividida em
+// 8 faixas lineares, então o erro relativo fica abaixo de 12,5% em toda a escala com apenas 488 contadores.
+// O registro é um incremento atômico sem lock; os percentis só são calculados no snapshot. Os contadores
+// ficam divididos em faixas por thread (uma cópia dos 488 para cada CPU, arredondado para potência de 2),
+// para que threads de conexão diferentes não disputem as mesmas linhas de cache; o snapshot soma as cópias.
+public class LatencyHistogram {
+    private static final int SUB_BITS = 3;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_COUNT;
+    private static final int STRIPES = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1);
+
+    private final AtomicLongArray[] stripes = new AtomicLongArray[STRIPES];
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    // Valores em nanossegundos
+    public record Snapshot(long count, long mean, long p50, long p90, long p99, long p999, long max) {
+    }
+
+    public LatencyHistogram() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new AtomicLongArray(BUCKETS);
+        }
+    }
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        stripe().incrementAndGet(index(nanos));
+        total.add(nanos);
+        max.accumulate(nanos);
+    }
+
+    // Registros concorrentes podem entrar entre as leituras; o snapshot é consistente o bastante para
+    // monitoração, não para contabilidade exata
+    public Snapshot snapshot() {
+        long[] copy = counts();
+        long count = 0;
+        for (long n : copy) {
+            count += n;
+        }
+        return summarize(copy, count, total.sum(), max.get());
+    }
+
+    // Janelas de leitura que não zeram o histograma: cada snapshot da janela cobre só o que foi registrado
+    // desde o anterior, e os outros leitores (JMX, outras janelas) continuam vendo os totais
+    public Window window() {
+        return new Window();
+    }
+
+    public final class Window {
+        private final long[] previous = new long[BUCKETS];
+        private long previousTotal;
+
+        private Window() {
+        }
+
+        // O máximo da janela é o limite da faixa mais alta com registros. Se alguém zerou o histograma
+        // no meio, a janela recomeça dali.
+        public Snapshot snapshot() {
+            long[] copy = counts();
+            long count = 0;
+            int highest = -1;
+            for (int i = 0; i < BUCKETS; i++) {
+                long n = copy[i];
+                copy[i] = n >= previous[i] ? n - previous[i] : n;
+                previous[i] = n;
+                count += copy[i];
+                if (copy[i] != 0) {
+                    highest = i;
+                }
+            }
+            long sum = total.sum();
+            long delta = sum >= previousTotal ? sum - previousTotal : sum;
+            previousTotal = sum;
+            return summarize(copy, count, delta, highest < 0 ? 0 : Math.min(upperBound(highest), max.get()));
+        }
+    }
+
+    private long[] counts() {
+        long[] copy = new long[BUCKETS];
+        for (AtomicLongArray counts : stripes) {
+            for (int i = 0; i < BUCKETS; i++) {
+                copy[i] += counts.get(i);
+            }
+        }
+        return copy;
+    }
+
+    private static Snapshot summarize(long[] counts, long count, long sum, long maximum) {
+        if (count == 0) {
+            return new Snapshot(0, 0, 0, 0, 0, 0, 0);
+        }
+        return new Snapshot(count, sum / count,
+                percentile(counts, count, 0.50, maximum),
+                percentile(counts, count, 0.90, maximum),
+                percentile(counts, count, 0.99, maximum),
+                percentile(counts, count, 0.999, maximum),
+                maximum);
+    }
+
+    public void reset() {
+        for (AtomicLongArray counts : stripes) {
+            for (int i = 0; i < BUCKETS; i++) {
+                counts.set(i, 0);
+            }
+        }
+        total.reset();
+        max.reset();
+    }
+
+    // Espalha os ids de thread (sequenciais) pelas faixas
+    private AtomicLongArray stripe() {
+        long id = Thread.currentThread().getId() * 0x9E3779B97F4A7C15L;
+        return stripes[(int) (id >>> 32) & (STRIPES - 1)];
+    }
+
+    // Devolve o limite superior da faixa que contém o percentil, sem passar do máximo observado
+    private static long percentile(long[] counts, long count, double p, long maximum) {
+        long target = (long) Math.ceil(p * count);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return Math.min(upperBound(i), maximum);
+            }
+        }
+        return maximum;
+    }
+
+    static int index(long value) {
+        if (value < SUB_COUNT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_COUNT - 1);
+        return (exponent - SUB_BITS + 1) * SUB_COUNT + sub;
+    }
+
+    static long upperBound(int index) {
+        if (index < SUB_COUNT) {
+            return index;
+        }
+        int exponent = index / SUB_COUNT + SUB_BITS - 1;
+        int sub = index % SUB_COUNT;
+        return ((SUB_COUNT + sub + 1L) << (exponent - SUB_BITS)) - 1;
+    }
+}
@@ -0,0 +1,137 @@
+package com.aes;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+// Implementação por T-tables: cada rodada combina SubBytes, ShiftRows e MixColumns em 16 consultas
+class TableEngine implements BlockEngine {
+    private static final int Nr = AES128.Nr;
+
+    private static final int[] Te0 = new int[256], Te1 = new int[256], Te2 = new int[256], Te3 = new int[256];
+    private static final int[] Td0 = new int[256], Td1 = new int[256], Td2 = new int[256], Td3 = new int[256];
+    private static final byte[] sBox = AES128.sBox;
+    private static final byte[] invSBox = AES128.invSBox;
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            int s = sBox[i] & 0xFF;
+            int te = AES128.gfMul(s, 2) << 24 | s << 16 | s << 8 | AES128.gfMul(s, 3);
+            Te0[i] = te;
+            Te1[i] = Integer.rotateRight(te, 8);
+            Te2[i] = Integer.rotateRight(te, 16);
+            Te3[i] = Integer.rotateRight(te, 24);
+
+            int is = invSBox[i] & 0xFF;
+            int td = AES128.gfMul(is, 0x0e) << 24 | AES128.gfMul(is, 0x09) << 16
+                    | AES128.gfMul(is, 0x0d) << 8 | AES128.gfMul(is, 0x0b);
+            Td0[i] = td;
+            Td1[i] = Integer.rotateRight(td, 8);
+            Td2[i] = Integer.rotateRight(td, 16);
+            Td3[i] = Integer.rotateRight(td, 24);
+        }
+    }
+
+    @Override
+    public void encryptBlock(int[] rk, byte[] in, int inOff, byte[] out, int outOff) {
+        encrypt(rk, in, null, inOff, out, null, outOff);
+    }
+
+    @Override
+    public void decryptBlock(int[] rk, byte[] in, int inOff, byte[] out, int outOff) {
+        decrypt(rk, in, null, inOff, out, null, outOff);
+    }
+
+    @Override
+    public void encryptBlock(int[] rk, ByteBuffer in, int inOff, ByteBuffer out, int outOff) {
+        encrypt(rk, null, in, inOff, null, out, outOff);
+    }
+
+    @Override
+    public void decryptBlock(int[] rk, ByteBuffer in, int inOff, ByteBuffer out, int outOff) {
+        decrypt(rk, null, in, inOff, null, out, outOff);
+    }
+
+    // Entrada e saída vêm como byte[] ou como ByteBuffer, o outro fica null; só load e store distinguem os dois
+    private static void encrypt(int[] rk, byte[] in, ByteBuffer inBuffer, int inOff,
+            byte[] out, ByteBuffer outBuffer, int outOff) {
+        int s0 = load(in, inBuffer, inOff) ^ rk[0];
+        int s1 = load(in, inBuffer, inOff + 4) ^ rk[1];
+        int s2 = load(in, inBuffer, inOff + 8) ^ rk[2];
+        int s3 = load(in, inBuffer, inOff + 12) ^ rk[3];
+
+        int k = 4;
+        for (int round = 1; round < Nr; round++, k += 4) {
+            int t0 = encRound(s0, s1, s2, s3, rk[k]);
+            int t1 = encRound(s1, s2, s3, s0, rk[k + 1]);
+            int t2 = encRound(s2, s3, s0, s1, rk[k + 2]);
+            int t3 = encRound(s3, s0, s1, s2, rk[k + 3]);
+            s0 = t0;
+            s1 = t1;
+            s2 = t2;
+            s3 = t3;
+        }
+
+        store(out, outBuffer, outOff, lastRound(sBox, s0, s1, s2, s3) ^ rk[k]);
+        store(out, outBuffer, outOff + 4, lastRound(sBox, s1, s2, s3, s0) ^ rk[k + 1]);
+        store(out, outBuffer, outOff + 8, lastRound(sBox, s2, s3, s0, s1) ^ rk[k + 2]);
+        store(out, outBuffer, outOff + 12, lastRound(sBox, s3, s0, s1, s2) ^ rk[k + 3]);
+    }
+
+    private static void decrypt(int[] rk, byte[] in, ByteBuffer inBuffer, int inOff,
+            byte[] out, ByteBuffer outBuffer, int outOff) {
+        int s0 = load(in, inBuffer, inOff) ^ rk[0];
+        int s1 = load(in, inBuffer, inOff + 4) ^ rk[1];
+        int s2 = load(in, inBuffer, inOff + 8) ^ rk[2];
+        int s3 = load(in, inBuffer, inOff + 12) ^ rk[3];
+
+        int k = 4;
+        for (int round = 1; round < Nr; round++, k += 4) {
+            int t0 = decRound(s0, s3, s2, s1, rk[k]);
+            int t1 = decRound(s1, s0, s3, s2, rk[k + 1]);
+            int t2 = decRound(s2, s1, s0, s3, rk[k + 2]);
+            int t3 = decRound(s3, s2, s1, s0, rk[k + 3]);
+            s0 = t0;
+            s1 = t1;
+            s2 = t2;
+            s3 = t3;
+        }
+
+        store(out, outBuffer, outOff, lastRound(invSBox, s0, s3, s2, s1) ^ rk[k]);
+        store(out, outBuffer, outOff + 4, lastRound(invSBox, s1, s0, s3, s2) ^ rk[k + 1]);
+        store(out, outBuffer, outOff + 8, lastRound(invSBox, s2, s1, s0, s3) ^ rk[k + 2]);
+        store(out, outBuffer, outOff + 12, lastRound(invSBox, s3, s2, s1, s0) ^ rk[k + 3]);
+    }
+
+    private static int encRound(int a, int b, int c, int d, int rk) {
+        return Te0[a >>> 24] ^ Te1[(b >>> 16) & 0xFF] ^ Te2[(c >>> 8) & 0xFF] ^ Te3[d & 0xFF] ^ rk;
+    }
+
+    private static int decRound(int a, int b, int c, int d, int rk) {
+        return Td0[a >>> 24] ^ Td1[(b >>> 16) & 0xFF] ^ Td2[(c >>> 8) & 0xFF] ^ Td3[d & 0xFF] ^ rk;
+    }
+
+    // Última rodada sem MixColumns: apenas substituição byte a byte já deslocada
+    private static int lastRound(byte[] box, int a, int b, int c, int d) {
+        return (box[a >>> 24] & 0xFF) << 24 | (box[(b >>> 16) & 0xFF] & 0xFF) << 16
+                | (box[(c >>> 8) & 0xFF] & 0xFF) << 8 | (box[d & 0xFF] & 0xFF);
+    }
+
+    private static int load(byte[] b, ByteBuffer buffer, int off) {
+        if (b != null) {
+            return b[off] << 24 | (b[off + 1] & 0xFF) << 16 | (b[off + 2] & 0xFF) << 8 | (b[off + 3] & 0xFF);
+        }
+        int v = buffer.getInt(off);
+        return buffer.order() == ByteOrder.BIG_ENDIAN ? v : Integer.reverseBytes(v);
+    }
+
+    private static void store(byte[] b, ByteBuffer buffer, int off, int v) {
+        if (b != null) {
+            b[off] = (byte) (v >>> 24);
+            b[off + 1] = (byte) (v >>> 16);
+            b[off + 2] = (byte) (v >>> 8);
+            b[off + 3] = (byte) v;
+        } else {
+            buffer.putInt(off, buffer.order() == ByteOrder.BIG_ENDIAN ? v : Integer.reverseBytes(v));
+        }
+    }
+}
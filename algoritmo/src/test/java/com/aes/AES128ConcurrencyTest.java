@@ -0,0 +1,88 @@
+package com.aes;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+// Uma única instância de AES128 usada ao mesmo tempo por 64 threads: cada thread confere todos os seus
+// resultados com o AES do JDK, então qualquer estado compartilhado entre chamadas aparece como divergência
+class AES128ConcurrencyTest {
+    private static final int THREADS = 64;
+    private static final int ITERATIONS = 200;
+
+    @ParameterizedTest
+    @EnumSource(AES128.Engine.class)
+    void sharedInstance(AES128.Engine engine) throws Exception {
+        byte[] key = new byte[16];
+        new Random(engine.ordinal()).nextBytes(key);
+        AES128 shared = new AES128(key, engine);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                long seed = t;
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return hammer(shared, key, new Random(seed));
+                }));
+            }
+            start.countDown();
+            for (Future<Integer> result : results) {
+                assertEquals(ITERATIONS, result.get(2, TimeUnit.MINUTES));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // Devolve quantas iterações conferiram; a primeira divergência falha a thread com a mensagem do assert
+    private static int hammer(AES128 shared, byte[] key, Random random) throws Exception {
+        SecretKeySpec spec = new SecretKeySpec(key, "AES");
+        Cipher ecb = Cipher.getInstance("AES/ECB/PKCS5Padding");
+        Cipher cbc = Cipher.getInstance("AES/CBC/NoPadding");
+        Cipher ctr = Cipher.getInstance("AES/CTR/NoPadding");
+        ecb.init(Cipher.ENCRYPT_MODE, spec);
+        byte[] scratch = new byte[AES128.SCRATCH_SIZE];
+        byte[] iv = new byte[16];
+        int checked = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            byte[] message = new byte[random.nextInt(300)];
+            random.nextBytes(message);
+            random.nextBytes(iv);
+
+            byte[] ciphertext = shared.encrypt(message);
+            assertArrayEquals(ecb.doFinal(message), ciphertext, "encrypt");
+            assertArrayEquals(message, shared.decrypt(ciphertext), "decrypt");
+
+            int blocks = message.length - message.length % 16;
+            byte[] out = new byte[blocks];
+            shared.encryptCBC(iv, message, 0, blocks, out, 0);
+            cbc.init(Cipher.ENCRYPT_MODE, spec, new IvParameterSpec(iv));
+            assertArrayEquals(cbc.doFinal(message, 0, blocks), out, "encryptCBC");
+            shared.decryptCBC(iv, out, 0, blocks, out, 0, scratch);
+            assertArrayEquals(Arrays.copyOf(message, blocks), out, "decryptCBC");
+
+            out = new byte[message.length];
+            shared.processCTR(iv, 0, message, 0, message.length, out, 0, scratch);
+            ctr.init(Cipher.ENCRYPT_MODE, spec, new IvParameterSpec(iv));
+            assertArrayEquals(ctr.doFinal(message), out, "processCTR");
+            checked++;
+        }
+        return checked;
+    }
+}
@@ -0,0 +1,238 @@
+package com.aes;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Random;
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+// Vetores do FIPS-197 e comparação com o AES do JDK (javax.crypto) em todos os motores
+class AES128Test {
+    private static final HexFormat HEX = HexFormat.of();
+    // Tamanhos que cobrem bloco único, lotes de 4 do BITSLICED, passadas inteiras do VECTOR e sobras parciais
+    private static final int[] LENGTHS = {0, 1, 15, 16, 17, 48, 63, 64, 65, 100, 256, 1000, 4099};
+
+    // FIPS-197, apêndice B
+    @ParameterizedTest
+    @EnumSource(AES128.Engine.class)
+    void fips197AppendixB(AES128.Engine engine) {
+        checkBlock(engine, "2b7e151628aed2a6abf7158809cf4f3c", "3243f6a8885a308d313198a2e0370734",
+                "3925841d02dc09fbdc118597196a0b32");
+    }
+
+    // FIPS-197, apêndice C.1 (AES-128)
+    @ParameterizedTest
+    @EnumSource(AES128.Engine.class)
+    void fips197AppendixC1(AES128.Engine engine) {
+        checkBlock(engine, "000102030405060708090a0b0c0d0e0f", "00112233445566778899aabbccddeeff",
+                "69c4e0d86a7b0430d8cdb78070b4c55a");
+    }
+
+    @ParameterizedTest
+    @EnumSource(AES128.Engine.class)
+    void paddedMatchesJdk(AES128.Engine engine) throws Exception {
+        Random random = new Random(1);
+        byte[] key = bytes(random, 16);
+        AES128 aes = new AES128(key, engine);
+        for (int len : LENGTHS) {
+            byte[] plaintext = bytes(random, len);
+            byte[] expected = jdk("AES/ECB/PKCS5Padding", key, null, plaintext);
+            assertArrayEquals(expected, aes.encrypt(plaintext), "encrypt, " + len + " bytes");
+            assertArrayEquals(plaintext, aes.decrypt(expected), "decrypt, " + len + " bytes");
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(AES128.Engine.class)
+    void ecbMatchesJdk(AES128.Engine engine) throws Exception {
+        Random random = new Random(2);
+        byte[] key = bytes(random, 16);
+        AES128 aes = new AES128(key, engine);
+        for (int len : LENGTHS) {
+            len -= len % 16;
+            byte[] plaintext = bytes(random, len);
+            byte[] expected = jdk("AES/ECB/NoPadding", key, null, plaintext);
+            byte[] out = new byte[len];
+            aes.encryptECB(plaintext, 0, len, out, 0);
+            assertArrayEquals(expected, out, "encryptECB, " + len + " bytes");
+            aes.decryptECB(out, 0, len, out, 0);
+            assertArrayEquals(plaintext, out, "decryptECB no lugar, " + len + " bytes");
+
+            ByteBuffer in = ByteBuffer.allocateDirect(len + 3);
+            ByteBuffer direct = ByteBuffer.allocateDirect(len + 5);
+            in.position(3);
+            in.put(plaintext);
+            aes.encryptECB(in, 3, len, direct, 5);
+            byte[] fromDirect = new byte[len];
+            direct.get(5, fromDirect);
+            assertArrayEquals(expected, fromDirect, "encryptECB em ByteBuffer, " + len + " bytes");
+            aes.decryptECB(direct, 5, len, direct, 5);
+            direct.get(5, fromDirect);
+            assertArrayEquals(plaintext, fromDirect, "decryptECB em ByteBuffer, " + len + " bytes");
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(AES128.Engine.class)
+    void cbcMatchesJdk(AES128.Engine engine) throws Exception {
+        Random random = new Random(3);
+        byte[] key = bytes(random, 16);
+        AES128 aes = new AES128(key, engine);
+        for (int len : LENGTHS) {
+            len -= len % 16;
+            byte[] iv = bytes(random, 16);
+            byte[] plaintext = bytes(random, len);
+            byte[] expected = jdk("AES/CBC/NoPadding", key, iv, plaintext);
+            byte[] out = new byte[len];
+            aes.encryptCBC(iv, plaintext, 0, len, out, 0);
+            assertArrayEquals(expected, out, "encryptCBC, " + len + " bytes");
+            aes.decryptCBC(iv, out, 0, len, out, 0);
+            assertArrayEquals(plaintext, out, "decryptCBC no lugar, " + len + " bytes");
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(AES128.Engine.class)
+    void ctrMatchesJdk(AES128.Engine engine) throws Exception {
+        Random random = new Random(4);
+        byte[] key = bytes(random, 16);
+        AES128 aes = new AES128(key, engine);
+        for (int len : LENGTHS) {
+            byte[] iv = bytes(random, 16);
+            // Contador perto do limite para exercitar o vai-um entre os bytes
+            for (int i = 8; i < 16; i++) {
+                iv[i] = (byte) 0xFF;
+            }
+            byte[] plaintext = bytes(random, len);
+            byte[] expected = jdk("AES/CTR/NoPadding", key, iv, plaintext);
+            byte[] out = new byte[len];
+            aes.processCTR(iv, plaintext, 0, len, out, 0);
+            assertArrayEquals(expected, out, "processCTR, " + len + " bytes");
+
+            if (len > 32) {
+                byte[] tail = new byte[len - 32];
+                aes.processCTR(iv, 2, plaintext, 32, len - 32, tail, 0);
+                assertArrayEquals(Arrays.copyOfRange(expected, 32, len), tail,
+                        "processCTR com blockOffset, " + len + " bytes");
+            }
+
+            ByteBuffer direct = ByteBuffer.allocateDirect(len);
+            direct.put(0, plaintext);
+            aes.processCTR(iv, 0, direct, 0, len, direct, 0, new byte[AES128.SCRATCH_SIZE]);
+            byte[] fromDirect = new byte[len];
+            direct.get(0, fromDirect);
+            assertArrayEquals(expected, fromDirect, "processCTR em ByteBuffer, " + len + " bytes");
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(AES128.Engine.class)
+    void rejectsBadPadding(AES128.Engine engine) {
+        AES128 aes = new AES128(new byte[16], engine);
+        byte[] ciphertext = new byte[16];
+        aes.encryptECB(new byte[16], 0, 16, ciphertext, 0);
+        assertThrows(IllegalArgumentException.class, () -> aes.decrypt(ciphertext));
+        assertThrows(IllegalArgumentException.class, () -> aes.decrypt(new byte[15]));
+    }
+
+    // Valor fora de 1..16 ou algum byte do padding diferente do valor: todos recusados com a mesma mensagem
+    @Test
+    void rejectsMalformedPadding() {
+        byte[][] invalid = {
+                block(15, (byte) 0x00),
+                block(15, (byte) 0x11),
+                block(14, (byte) 0x03, (byte) 0x02),
+                block(13, (byte) 0x02, (byte) 0x03, (byte) 0x03),
+                block(0, new byte[]{0x10, 0x10, 0x10, 0x10, 0x10, 0x10, 0x10, 0x10, 0x10, 0x10, 0x10, 0x10, 0x10,
+                        0x10, 0x10, 0x0F}),
+        };
+        AES128 aes = new AES128(new byte[16]);
+        for (byte[] padded : invalid) {
+            byte[] ciphertext = new byte[padded.length];
+            aes.encryptECB(padded, 0, padded.length, ciphertext, 0);
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> aes.decrypt(ciphertext));
+            assertEquals("Padding inválido", e.getMessage());
+            assertThrows(IllegalArgumentException.class, () -> aes.removePadding(padded));
+            ByteBuffer direct = ByteBuffer.allocateDirect(padded.length).put(padded);
+            assertThrows(IllegalArgumentException.class, () -> AES128.unpaddedLength(direct, 0, padded.length));
+        }
+        assertThrows(IllegalArgumentException.class, () -> aes.removePadding(new byte[0]));
+        assertThrows(IllegalArgumentException.class, () -> aes.removePadding(new byte[]{1}));
+
+        assertEquals(0, aes.removePadding(block(0, new byte[]{0x10, 0x10, 0x10, 0x10, 0x10, 0x10, 0x10, 0x10,
+                0x10, 0x10, 0x10, 0x10, 0x10, 0x10, 0x10, 0x10})).length);
+        assertEquals(13, aes.removePadding(block(13, (byte) 3, (byte) 3, (byte) 3)).length);
+    }
+
+    // Com mvn -Pvector o surefire roda com --add-modules jdk.incubator.vector; aí o VECTOR não pode ter caído
+    // para o reserva. No build padrão o VectorEngine nem é compilado e o teste é ignorado.
+    @Test
+    void vectorEngineDetected() {
+        assumeTrue(ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent());
+        assertEquals("com.aes.VectorEngine", AES128.Engine.VECTOR.impl.getClass().getName());
+    }
+
+    // Zera o escalonamento de cifra e o inverso em todos os motores, inclusive a rodada 0 (a chave)
+    @ParameterizedTest
+    @EnumSource(AES128.Engine.class)
+    void destroyZeroesRoundKeys(AES128.Engine engine) throws Exception {
+        AES128 aes = new AES128(HEX.parseHex("2b7e151628aed2a6abf7158809cf4f3c"), engine);
+        assertFalse(aes.isDestroyed());
+        aes.destroy();
+        assertTrue(aes.isDestroyed());
+        for (String name : new String[]{"encKey", "decKey"}) {
+            Field field = AES128.class.getDeclaredField(name);
+            field.setAccessible(true);
+            int[] rk = (int[]) field.get(aes);
+            assertArrayEquals(new int[rk.length], rk, name);
+        }
+    }
+
+    // Bloco de 16 bytes com data bytes 0x41 seguidos do final dado
+    private static byte[] block(int data, byte... tail) {
+        byte[] block = new byte[16];
+        Arrays.fill(block, 0, data, (byte) 0x41);
+        System.arraycopy(tail, 0, block, data, tail.length);
+        return block;
+    }
+
+    private static void checkBlock(AES128.Engine engine, String key, String plaintext, String ciphertext) {
+        AES128 aes = new AES128(HEX.parseHex(key), engine);
+        byte[] out = new byte[16];
+        aes.encryptBlock(HEX.parseHex(plaintext), 0, out, 0);
+        assertArrayEquals(HEX.parseHex(ciphertext), out);
+        aes.decryptBlock(out, 0, out, 0);
+        assertArrayEquals(HEX.parseHex(plaintext), out);
+    }
+
+    private static byte[] jdk(String transformation, byte[] key, byte[] iv, byte[] input)
+            throws Exception {
+        Cipher cipher = Cipher.getInstance(transformation);
+        SecretKeySpec spec = new SecretKeySpec(key, "AES");
+        if (iv == null) {
+            cipher.init(Cipher.ENCRYPT_MODE, spec);
+        } else {
+            cipher.init(Cipher.ENCRYPT_MODE, spec, new IvParameterSpec(iv));
+        }
+        return cipher.doFinal(input);
+    }
+
+    private static byte[] bytes(Random random, int len) {
+        byte[] data = new byte[len];
+        random.nextBytes(data);
+        return data;
+    }
+}
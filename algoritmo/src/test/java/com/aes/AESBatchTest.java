@@ -0,0 +1,155 @@
+package com.aes;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+// Quadros BATCH: formato do corpo, validação da estrutura e recusa de uma mensagem sem perder as outras
+class AESBatchTest {
+    private static final AES128 AES = new AES128(new byte[16]);
+    private static final byte[] RESPOSTA = "Olá, cliente!".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void batchBodyMatchesSeparateEncryption() {
+        Random random = new Random(18);
+        List<byte[]> plaintexts = new ArrayList<>();
+        for (int size : new int[]{0, 1, 15, 16, 17, 100}) {
+            byte[] plaintext = new byte[size];
+            random.nextBytes(plaintext);
+            plaintexts.add(plaintext);
+        }
+        byte[] body = AESProtocol.batch(AES, plaintexts);
+
+        assertEquals(plaintexts.size(), AESProtocol.batchCount(body, body.length));
+        int off = 4 + 4 * plaintexts.size();
+        for (int i = 0; i < plaintexts.size(); i++) {
+            byte[] expected = AES.encrypt(plaintexts.get(i));
+            assertEquals(expected.length, AESProtocol.getInt(body, 4 + 4 * i));
+            assertArrayEquals(expected, Arrays.copyOfRange(body, off, off + expected.length));
+            off += expected.length;
+        }
+        assertEquals(body.length, off);
+        assertEquals(plaintexts.stream().map(AES::encrypt).map(Arrays::toString).toList(),
+                AES.encryptBatch(plaintexts).stream().map(Arrays::toString).toList());
+
+        List<byte[]> opened = AESProtocol.openBatch(AES, body, body.length);
+        for (int i = 0; i < plaintexts.size(); i++) {
+            assertArrayEquals(plaintexts.get(i), opened.get(i));
+        }
+        assertThrows(IllegalArgumentException.class, () -> AESProtocol.batch(AES, List.of()));
+    }
+
+    @Test
+    void batchCountRejectsMalformedBodies() {
+        assertEquals(2, AESProtocol.batchCount(Arrays.copyOf(header(2, 16, 32), 4 + 8 + 48), 4 + 8 + 48));
+        // Contador ausente, zero, negativo ou maior que o corpo
+        assertMalformed(new byte[3], 3);
+        assertMalformed(header(0), 4);
+        assertMalformed(header(-1, 16), 4 + 4 + 16);
+        assertMalformed(header(3, 16, 16), 4 + 8 + 32);
+        assertMalformed(header(Integer.MAX_VALUE, 16), 4 + 4 + 16);
+        // Tamanho que não é múltiplo de 16 ou negativo
+        assertMalformed(header(1, 15), 4 + 4 + 15);
+        assertMalformed(header(2, -16, 32), 4 + 8 + 16);
+        // Soma diferente do que veio, para menos e para mais
+        assertMalformed(header(1, 32), 4 + 4 + 16);
+        assertMalformed(header(1, 16), 4 + 4 + 32);
+        // Soma que só fecharia com estouro de int
+        assertMalformed(header(3, 0x7FFFFFF0, 0x7FFFFFF0, 48), 4 + 12 + 16);
+    }
+
+    // No servidor, uma mensagem com padding inválido volta com tamanho 0 e as outras são respondidas
+    @Test
+    void serverRefusesSingleItem() throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        AESTCPServer server = new AESTCPServer(AES, port, 4);
+        server.start();
+        try (Socket socket = connect(port)) {
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+
+            byte[] body = AESProtocol.batch(AES, List.of(new byte[3], new byte[5], new byte[20]));
+            // Segunda mensagem: bloco que decifra para padding 0
+            byte[] bad = new byte[16];
+            AES.encryptECB(bad, 0, 16, bad, 0);
+            System.arraycopy(bad, 0, body, 4 + 12 + 16, 16);
+            AESProtocol.writeFrame(out, AESProtocol.TYPE_BATCH, 1, body);
+            // Estrutura inválida: ERROR, e a conexão segue
+            AESProtocol.writeFrame(out, AESProtocol.TYPE_BATCH, 2, Arrays.copyOf(header(1, 32), 4 + 4 + 16));
+            AESProtocol.writeFrame(out, AESProtocol.TYPE_BATCH, 3, AESProtocol.batch(AES, List.of(new byte[1])));
+            out.flush();
+
+            AESProtocol.Frame response = AESProtocol.readFrame(in);
+            assertEquals(AESProtocol.TYPE_BATCH, response.type());
+            byte[] reply = response.body();
+            assertEquals(3, AESProtocol.batchCount(reply, reply.length));
+            assertEquals(16, AESProtocol.getInt(reply, 4));
+            assertEquals(0, AESProtocol.getInt(reply, 8));
+            assertEquals(16, AESProtocol.getInt(reply, 12));
+            assertArrayEquals(RESPOSTA, AES.decrypt(Arrays.copyOfRange(reply, 16, 32)));
+            assertArrayEquals(RESPOSTA, AES.decrypt(Arrays.copyOfRange(reply, 32, 48)));
+            assertThrows(IllegalArgumentException.class, () -> AESProtocol.openBatch(AES, reply, reply.length));
+
+            AESProtocol.Frame error = AESProtocol.readFrame(in);
+            assertEquals(AESProtocol.TYPE_ERROR, error.type());
+            assertEquals(2, error.id());
+            AESProtocol.Frame accepted = AESProtocol.readFrame(in);
+            assertEquals(3, accepted.id());
+            List<byte[]> opened = AESProtocol.openBatch(AES, accepted.body(), accepted.body().length);
+            assertArrayEquals(RESPOSTA, opened.get(0));
+        } finally {
+            server.shutdown(5, TimeUnit.SECONDS);
+        }
+        assertEquals(1, server.getMetrics().getAuthenticationFailures());
+        assertEquals(1, server.getMetrics().getProtocolErrors());
+    }
+
+    // Só o contador e os tamanhos; assertMalformed completa com zeros até o tamanho informado
+    private static byte[] header(int count, int... lengths) {
+        byte[] header = new byte[4 + 4 * lengths.length];
+        AESProtocol.putInt(header, 0, count);
+        for (int i = 0; i < lengths.length; i++) {
+            AESProtocol.putInt(header, 4 + 4 * i, lengths[i]);
+        }
+        return header;
+    }
+
+    private static void assertMalformed(byte[] header, int len) {
+        byte[] body = Arrays.copyOf(header, Math.max(header.length, len));
+        assertThrows(IllegalArgumentException.class, () -> AESProtocol.batchCount(body, len));
+    }
+
+    // O servidor abre a porta na própria thread; tenta até ela aceitar
+    private static Socket connect(int port) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (true) {
+            try {
+                Socket socket = new Socket("localhost", port);
+                socket.setSoTimeout(5000);
+                return socket;
+            } catch (IOException e) {
+                if (System.nanoTime() > deadline) {
+                    throw e;
+                }
+                Thread.sleep(10);
+            }
+        }
+    }
+}
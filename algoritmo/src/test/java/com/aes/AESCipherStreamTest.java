@@ -0,0 +1,143 @@
+package com.aes;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import org.junit.jupiter.api.Test;
+
+// AESCipherOutputStream e AESCipherInputStream contra AES/CBC/PKCS5Padding do JDK, com buffers pequenos e
+// escritas e leituras em pedaços que não caem em limites de bloco
+class AESCipherStreamTest {
+    private static final int[] SIZES = {0, 1, 15, 16, 17, 31, 32, 33, 100, 1000, 20_000};
+    private static final int[] BUFFER_SIZES = {32, 48, 8192};
+
+    @Test
+    void outputStreamMatchesJdk() throws Exception {
+        Random random = new Random(21);
+        byte[] key = bytes(random, 16);
+        byte[] iv = bytes(random, 16);
+        AES128 aes = new AES128(key);
+        for (int bufferSize : BUFFER_SIZES) {
+            for (int size : SIZES) {
+                byte[] plaintext = bytes(random, size);
+                ByteArrayOutputStream sink = new ByteArrayOutputStream();
+                try (AESCipherOutputStream out = new AESCipherOutputStream(sink, aes, iv, bufferSize)) {
+                    int off = 0;
+                    // Pedaços de 1 a 37 bytes, com write(int) no meio
+                    for (int chunk = 1; off < size; chunk = chunk % 37 + 1) {
+                        if (chunk == 5) {
+                            out.write(plaintext[off++]);
+                            continue;
+                        }
+                        int n = Math.min(chunk, size - off);
+                        out.write(plaintext, off, n);
+                        off += n;
+                        if (chunk == 11) {
+                            out.flush();
+                        }
+                    }
+                }
+                assertArrayEquals(jdk(Cipher.ENCRYPT_MODE, key, iv, plaintext), sink.toByteArray(),
+                        "buffer de " + bufferSize + ", " + size + " bytes");
+            }
+        }
+    }
+
+    @Test
+    void inputStreamMatchesJdk() throws Exception {
+        Random random = new Random(22);
+        byte[] key = bytes(random, 16);
+        byte[] iv = bytes(random, 16);
+        AES128 aes = new AES128(key);
+        for (int bufferSize : BUFFER_SIZES) {
+            for (int size : SIZES) {
+                byte[] plaintext = bytes(random, size);
+                byte[] ciphertext = jdk(Cipher.ENCRYPT_MODE, key, iv, plaintext);
+
+                InputStream trickle = new Trickle(ciphertext);
+                try (AESCipherInputStream in = new AESCipherInputStream(trickle, aes, iv, bufferSize)) {
+                    ByteArrayOutputStream read = new ByteArrayOutputStream();
+                    byte[] chunk = new byte[13];
+                    int n;
+                    while ((n = in.read(chunk, 0, chunk.length)) >= 0) {
+                        read.write(chunk, 0, n);
+                    }
+                    assertArrayEquals(plaintext, read.toByteArray(),
+                            "buffer de " + bufferSize + ", " + size + " bytes");
+                }
+
+                try (AESCipherInputStream in = new AESCipherInputStream(new ByteArrayInputStream(ciphertext), aes, iv,
+                        bufferSize)) {
+                    for (byte b : plaintext) {
+                        assertEquals(b & 0xFF, in.read());
+                    }
+                    assertEquals(-1, in.read());
+                }
+            }
+        }
+    }
+
+    @Test
+    void inputStreamRejectsTruncatedAndBadPadding() throws Exception {
+        byte[] key = new byte[16];
+        byte[] iv = new byte[16];
+        AES128 aes = new AES128(key);
+        byte[] ciphertext = jdk(Cipher.ENCRYPT_MODE, key, iv, new byte[40]);
+
+        assertThrows(IOException.class, () -> readAll(aes, iv, new byte[0]));
+        assertThrows(IOException.class, () -> readAll(aes, iv, Arrays.copyOf(ciphertext, ciphertext.length - 1)));
+
+        // Último bloco decifra para padding 0x00 e para 0x03 precedido de outro valor
+        byte[] badZero = jdk(Cipher.ENCRYPT_MODE, key, iv, new byte[16], true);
+        assertThrows(IOException.class, () -> readAll(aes, iv, badZero));
+        byte[] mismatched = new byte[16];
+        mismatched[15] = 3;
+        mismatched[14] = 3;
+        byte[] badMismatch = jdk(Cipher.ENCRYPT_MODE, key, iv, mismatched, true);
+        assertThrows(IOException.class, () -> readAll(aes, iv, badMismatch));
+    }
+
+    private static byte[] readAll(AES128 aes, byte[] iv, byte[] ciphertext) throws IOException {
+        try (AESCipherInputStream in = new AESCipherInputStream(new ByteArrayInputStream(ciphertext), aes, iv)) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static byte[] jdk(int mode, byte[] key, byte[] iv, byte[] input) throws Exception {
+        return jdk(mode, key, iv, input, false);
+    }
+
+    private static byte[] jdk(int mode, byte[] key, byte[] iv, byte[] input, boolean raw) throws Exception {
+        Cipher cipher = Cipher.getInstance(raw ? "AES/CBC/NoPadding" : "AES/CBC/PKCS5Padding");
+        cipher.init(mode, new SecretKeySpec(key, "AES"), new IvParameterSpec(iv));
+        return cipher.doFinal(input);
+    }
+
+    private static byte[] bytes(Random random, int n) {
+        byte[] b = new byte[n];
+        random.nextBytes(b);
+        return b;
+    }
+
+    // Entrega no máximo 7 bytes por read, como um socket lento
+    private static final class Trickle extends ByteArrayInputStream {
+        Trickle(byte[] data) {
+            super(data);
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) {
+            return super.read(b, off, Math.min(len, 7));
+        }
+    }
+}
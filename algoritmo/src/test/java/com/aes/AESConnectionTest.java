@@ -0,0 +1,131 @@
+package com.aes;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+// AESConnection contra um servidor de teste que lê várias requisições antes de responder e escolhe a
+// ordem e o tipo das respostas
+class AESConnectionTest {
+    private static final AES128 AES = new AES128(new byte[16]);
+
+    private ServerSocket server;
+    private Thread serverThread;
+
+    @AfterEach
+    void stopServer() throws Exception {
+        if (server != null) {
+            server.close();
+            serverThread.join(5000);
+        }
+    }
+
+    // As respostas chegam na ordem inversa; cada future recebe a da sua requisição pelo id
+    @Test
+    void matchesOutOfOrderResponsesById() throws Exception {
+        int count = 5;
+        start(count, (requests, out) -> {
+            for (int i = requests.size() - 1; i >= 0; i--) {
+                AESProtocol.Frame request = requests.get(i);
+                byte[] echo = ("eco " + text(AES.decrypt(request.body()))).getBytes(StandardCharsets.UTF_8);
+                AESProtocol.writeFrame(out, AESProtocol.TYPE_MESSAGE, request.id(), AES.encrypt(echo));
+            }
+        });
+        try (AESConnection connection = new AESConnection(AES, "localhost", server.getLocalPort())) {
+            List<CompletableFuture<byte[]>> responses = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                responses.add(connection.send(("mensagem " + i).getBytes(StandardCharsets.UTF_8)));
+            }
+            for (int i = 0; i < count; i++) {
+                assertEquals("eco mensagem " + i, text(responses.get(i).get(5, TimeUnit.SECONDS)));
+            }
+            assertEquals(0, connection.getPendingCount());
+        }
+    }
+
+    // ERROR ou um tipo diferente do pedido falham só o future daquela requisição
+    @Test
+    void failsResponsesOfUnexpectedType() throws Exception {
+        start(3, (requests, out) -> {
+            AESProtocol.writeFrame(out, AESProtocol.TYPE_ERROR, requests.get(0).id(), new byte[0]);
+            AESProtocol.writeFrame(out, AESProtocol.TYPE_BATCH, requests.get(1).id(), AES.encrypt(new byte[3]));
+            AESProtocol.writeFrame(out, AESProtocol.TYPE_MESSAGE, requests.get(2).id(),
+                    AES.encrypt("ok".getBytes(StandardCharsets.UTF_8)));
+        });
+        try (AESConnection connection = new AESConnection(AES, "localhost", server.getLocalPort())) {
+            CompletableFuture<byte[]> refused = connection.send(new byte[1]);
+            CompletableFuture<byte[]> mismatched = connection.send(new byte[2]);
+            CompletableFuture<byte[]> accepted = connection.send(new byte[3]);
+
+            assertEquals("ok", text(accepted.get(5, TimeUnit.SECONDS)));
+            assertFailsWith(IOException.class, refused);
+            assertFailsWith(IOException.class, mismatched);
+        }
+    }
+
+    // Requisição que falha ao ser montada lança para quem chamou e não deixa nada em pending
+    @Test
+    void requestThatCannotBeBuiltIsNotPending() throws Exception {
+        start(1, (requests, out) -> AESProtocol.writeFrame(out, AESProtocol.TYPE_MESSAGE, requests.get(0).id(),
+                AES.encrypt(new byte[0])));
+        try (AESConnection connection = new AESConnection(AES, "localhost", server.getLocalPort())) {
+            assertThrows(NullPointerException.class, () -> connection.send(null));
+            assertThrows(NullPointerException.class, () -> connection.sendSealed(null));
+            assertThrows(IllegalArgumentException.class, () -> connection.sendBatch(List.of()));
+            assertEquals(0, connection.getPendingCount());
+            assertArrayEquals(new byte[0], connection.send(new byte[0]).get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    private interface Responder {
+        void respond(List<AESProtocol.Frame> requests, DataOutputStream out) throws IOException;
+    }
+
+    // Aceita uma conexão, lê count quadros e só então responde
+    private void start(int count, Responder responder) throws IOException {
+        server = new ServerSocket(0);
+        serverThread = new Thread(() -> {
+            try (Socket socket = server.accept();
+                    DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+                List<AESProtocol.Frame> requests = new ArrayList<>();
+                while (requests.size() < count) {
+                    requests.add(AESProtocol.readFrame(in));
+                }
+                responder.respond(requests, out);
+                out.flush();
+                // Mantém a conexão aberta até o cliente fechar
+                while (in.read() >= 0) {
+                }
+            } catch (IOException ignored) {
+            }
+        });
+        serverThread.start();
+    }
+
+    private static void assertFailsWith(Class<? extends Throwable> type, CompletableFuture<?> future) {
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(type, e.getCause());
+    }
+
+    private static String text(byte[] bytes) {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,90 @@
+package com.aes;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Arquivos cifrados por janelas mapeadas têm de bater com AES/CTR do JDK, inclusive quando o arquivo não
+// cabe numa janela e a última fica parcial
+class AESFileEncryptorTest {
+    private static final int[] SIZES = {0, 1, 15, 16, 17, 4096, 100_000};
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void matchesJdkCtrAcrossRegions() throws Exception {
+        Random random = new Random(11);
+        byte[] key = bytes(random, 16);
+        byte[] iv = bytes(random, 16);
+        AES128 aes = new AES128(key);
+        for (int regionSize : new int[]{16, 4096, AESFileEncryptor.DEFAULT_REGION_SIZE}) {
+            AESFileEncryptor encryptor = new AESFileEncryptor(aes, regionSize);
+            for (int size : SIZES) {
+                byte[] plaintext = bytes(random, size);
+                Path source = Files.write(dir.resolve("claro"), plaintext);
+                Path target = dir.resolve("cifrado");
+                Path restored = dir.resolve("decifrado");
+
+                encryptor.encrypt(iv, source, target);
+                assertArrayEquals(jdkCtr(key, iv, plaintext), Files.readAllBytes(target),
+                        "janela de " + regionSize + ", " + size + " bytes");
+                encryptor.decrypt(iv, target, restored);
+                assertArrayEquals(plaintext, Files.readAllBytes(restored));
+            }
+        }
+    }
+
+    // Um destino maior que a origem é truncado, não fica com sobra do conteúdo anterior
+    @Test
+    void truncatesLongerTarget() throws Exception {
+        AESFileEncryptor encryptor = new AESFileEncryptor(new AES128(new byte[16]));
+        Path source = Files.write(dir.resolve("claro"), new byte[100]);
+        Path target = Files.write(dir.resolve("cifrado"), new byte[1000]);
+        encryptor.encrypt(new byte[16], source, target);
+        assertArrayEquals(jdkCtr(new byte[16], new byte[16], new byte[100]), Files.readAllBytes(target));
+    }
+
+    @Test
+    void rejectsSameFile() throws Exception {
+        AESFileEncryptor encryptor = new AESFileEncryptor(new AES128(new byte[16]));
+        byte[] plaintext = bytes(new Random(12), 1000);
+        Path source = Files.write(dir.resolve("claro"), plaintext);
+
+        assertThrows(IllegalArgumentException.class, () -> encryptor.encrypt(new byte[16], source, source));
+        assertThrows(IllegalArgumentException.class,
+                () -> encryptor.encrypt(new byte[16], source, dir.resolve(".").resolve("claro")));
+        Path link = dir.resolve("link");
+        try {
+            Files.createSymbolicLink(link, source);
+        } catch (UnsupportedOperationException | IOException e) {
+            link = null;
+        }
+        assumeTrue(link != null, "sistema de arquivos sem links simbólicos");
+        Path target = link;
+        assertThrows(IllegalArgumentException.class, () -> encryptor.encrypt(new byte[16], source, target));
+        assertArrayEquals(plaintext, Files.readAllBytes(source));
+    }
+
+    private static byte[] jdkCtr(byte[] key, byte[] iv, byte[] input) throws Exception {
+        Cipher cipher = Cipher.getInstance("AES/CTR/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(key, "AES"), new IvParameterSpec(iv));
+        return cipher.doFinal(input);
+    }
+
+    private static byte[] bytes(Random random, int n) {
+        byte[] b = new byte[n];
+        random.nextBytes(b);
+        return b;
+    }
+}
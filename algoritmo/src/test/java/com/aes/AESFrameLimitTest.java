@@ -0,0 +1,178 @@
+package com.aes;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.Test;
+
+// Um só limite de quadro e um só orçamento de memória para os dois servidores: quadros grandes dentro do
+// orçamento são atendidos, os demais recebem ERROR com o id da requisição e a conexão fecha
+class AESFrameLimitTest {
+    private static final AES128 AES = new AES128(new byte[16]);
+    private static final byte[] RESPOSTA = "Olá, cliente!".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void writeFrameRejectsOversizedBody() {
+        DataOutputStream out = new DataOutputStream(new ByteArrayOutputStream());
+        byte[] body = new byte[AESProtocol.MAX_FRAME_LENGTH - 4];
+        assertThrows(IllegalArgumentException.class,
+                () -> AESProtocol.writeFrame(out, AESProtocol.TYPE_MESSAGE, 1, body));
+        assertEquals(0, out.size());
+    }
+
+    @Test
+    void frameReaderRefusesOverBudgetAndReleases() throws Exception {
+        FrameBudget budget = new FrameBudget(100);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        AESProtocol.writeFrame(out, AESProtocol.TYPE_MESSAGE, 1, new byte[80]);
+        AESProtocol.writeFrame(out, AESProtocol.TYPE_MESSAGE, 2, new byte[10]);
+        AESProtocol.writeFrame(out, AESProtocol.TYPE_MESSAGE, 3, new byte[200]);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+
+        AESProtocol.FrameReader frame = new AESProtocol.FrameReader(new byte[16], budget);
+        assertTrue(frame.read(in));
+        assertEquals(80, frame.length());
+        assertEquals(80, budget.used());
+        // O array maior volta ao orçamento na leitura seguinte
+        assertTrue(frame.read(in));
+        assertEquals(2, frame.id());
+        assertEquals(0, budget.used());
+        assertTrue(frame.read(in));
+        assertTrue(frame.refused());
+        assertEquals(3, frame.id());
+        assertEquals(0, budget.used());
+    }
+
+    @Test
+    void frameSizeAboveLimitIsRefusedNotAnError() throws Exception {
+        ByteBuffer header = ByteBuffer.allocate(AESProtocol.HEADER_SIZE);
+        header.putInt(0, AESProtocol.MAX_FRAME_LENGTH + 1);
+        assertEquals(Integer.MAX_VALUE, AESProtocol.frameSize(header));
+        header.putInt(0, 4);
+        assertThrows(IOException.class, () -> AESProtocol.frameSize(header));
+    }
+
+    @Test
+    void tcpServerServesFramesWithinBudgetAndRefusesOthers() throws Exception {
+        FrameBudget budget = new FrameBudget(3 * AESTCPServer.DEFAULT_BUFFER_SIZE);
+        int port = freePort();
+        AESTCPServer server = new AESTCPServer(AES, port, 4, budget);
+        server.start();
+        try {
+            assertServesAndRefuses(port, 2 * AESTCPServer.DEFAULT_BUFFER_SIZE, 4 * AESTCPServer.DEFAULT_BUFFER_SIZE);
+            assertRefusesAboveProtocolLimit(port);
+        } finally {
+            server.shutdown(5, TimeUnit.SECONDS);
+        }
+        assertEquals(0, budget.used());
+    }
+
+    @Test
+    void nioServerServesFramesWithinBudgetAndRefusesOthers() throws Exception {
+        FrameBudget budget = new FrameBudget(3 * AESNIOServer.DEFAULT_BUFFER_SIZE);
+        int port = freePort();
+        AESNIOServer server = new AESNIOServer(AES, port, 1, budget);
+        server.start();
+        try {
+            assertServesAndRefuses(port, 2 * AESNIOServer.DEFAULT_BUFFER_SIZE, 4 * AESNIOServer.DEFAULT_BUFFER_SIZE);
+            assertRefusesAboveProtocolLimit(port);
+            waitUntil(() -> server.getActiveConnections() == 0);
+        } finally {
+            server.shutdown();
+        }
+        assertEquals(0, budget.used());
+    }
+
+    // Uma mensagem maior que o buffer e dentro do orçamento é atendida; outra acima do orçamento, na mesma
+    // conexão, recebe ERROR e a conexão fecha
+    private static void assertServesAndRefuses(int port, int accepted, int refused) throws Exception {
+        try (Socket socket = connect(port)) {
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+
+            AESProtocol.writeFrame(out, AESProtocol.TYPE_MESSAGE, 7, AES.encrypt(new byte[accepted]));
+            AESProtocol.Frame response = AESProtocol.readFrame(in);
+            assertEquals(AESProtocol.TYPE_MESSAGE, response.type());
+            assertEquals(7, response.id());
+            assertArrayEquals(RESPOSTA, AES.decrypt(response.body()));
+
+            // Só o cabeçalho e parte do corpo: o servidor recusa sem esperar o resto
+            out.writeInt(5 + refused);
+            out.writeByte(AESProtocol.TYPE_MESSAGE);
+            out.writeInt(8);
+            out.write(new byte[64]);
+            out.flush();
+            assertRefusedThenClosed(in, 8);
+        }
+    }
+
+    private static void assertRefusesAboveProtocolLimit(int port) throws Exception {
+        try (Socket socket = connect(port)) {
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            out.writeInt(AESProtocol.MAX_FRAME_LENGTH + 1);
+            out.writeByte(AESProtocol.TYPE_MESSAGE);
+            out.writeInt(9);
+            out.flush();
+            assertRefusedThenClosed(new DataInputStream(new BufferedInputStream(socket.getInputStream())), 9);
+        }
+    }
+
+    private static void assertRefusedThenClosed(DataInputStream in, int id) throws IOException {
+        AESProtocol.Frame error = AESProtocol.readFrame(in);
+        assertEquals(AESProtocol.TYPE_ERROR, error.type());
+        assertEquals(id, error.id());
+        try {
+            assertNull(AESProtocol.readFrame(in));
+        } catch (SocketException e) {
+            // Corpo não lido no servidor: o fechamento pode chegar como reset
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    // O servidor abre a porta na própria thread; tenta até ela aceitar
+    private static Socket connect(int port) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (true) {
+            try {
+                Socket socket = new Socket("localhost", port);
+                socket.setSoTimeout(5000);
+                return socket;
+            } catch (IOException e) {
+                if (System.nanoTime() > deadline) {
+                    throw e;
+                }
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
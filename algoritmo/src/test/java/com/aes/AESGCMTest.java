@@ -0,0 +1,181 @@
+package com.aes;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Random;
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import org.junit.jupiter.api.Test;
+
+// Vetores de McGrew e Viega (casos 1 a 6, AES-128) e comparação com AES/GCM/NoPadding do JDK para IVs,
+// AADs e tamanhos fora de blocos; qualquer byte alterado tem de falhar sem deixar texto claro na saída
+class AESGCMTest {
+    private static final HexFormat HEX = HexFormat.of();
+
+    private static final String K = "feffe9928665731c6d6a8f9467308308";
+    private static final String P = "d9313225f88406e5a55909c5aff5269a86a7a9531534f7da2e4c303d8a318a72"
+            + "1c3c0c95956809532fcf0e2449a6b525b16aedf5aa0de657ba637b391aafd255";
+    private static final String P60 = P.substring(0, 120);
+    private static final String A = "feedfacedeadbeeffeedfacedeadbeefabaddad2";
+
+    // chave, IV, AAD, texto claro, texto cifrado, tag
+    private static final String[][] VECTORS = {
+        {"00000000000000000000000000000000", "000000000000000000000000", "", "", "",
+            "58e2fccefa7e3061367f1d57a4e7455a"},
+        {"00000000000000000000000000000000", "000000000000000000000000", "", "00000000000000000000000000000000",
+            "0388dace60b6a392f328c2b971b2fe78", "ab6e47d42cec13bdf53a67b21257bddf"},
+        {K, "cafebabefacedbaddecaf888", "", P,
+            "42831ec2217774244b7221b784d0d49ce3aa212f2c02a4e035c17e2329aca12e"
+                    + "21d514b25466931c7d8f6a5aac84aa051ba30b396a0aac973d58e091473f5985",
+            "4d5c2af327cd64a62cf35abd2ba6fab4"},
+        {K, "cafebabefacedbaddecaf888", A, P60,
+            "42831ec2217774244b7221b784d0d49ce3aa212f2c02a4e035c17e2329aca12e"
+                    + "21d514b25466931c7d8f6a5aac84aa051ba30b396a0aac973d58e091",
+            "5bc94fbc3221a5db94fae95ae7121a47"},
+        {K, "cafebabefacedbad", A, P60,
+            "61353b4c2806934a777ff51fa22a4755699b2a714fcdc6f83766e5f97b6c7423"
+                    + "73806900e49f24b22b097544d4896b424989b5e1ebac0f07c23f4598",
+            "3612d2e79e3b0785561be14aaca2fccb"},
+        {K, "9313225df88406e555909c5aff5269aa6a7a9538534f7da1e4c303d2a318a728"
+                + "c3c0c95156809539fcf0e2429a6b525416aedbf5a0de6a57a637b39b", A, P60,
+            "8ce24998625615b603a033aca13fb894be9112a5c3a211a8ba262a3cca7e2ca7"
+                    + "01e4a9a4fba43c90ccdcb281d48c7c6fd62875d2aca417034c34aee5",
+            "619cc5aefffe0bfa462af43c1699d050"},
+    };
+
+    @Test
+    void mcGrewViegaVectors() {
+        for (String[] v : VECTORS) {
+            AESGCM gcm = new AESGCM(new AES128(HEX.parseHex(v[0])));
+            byte[] iv = HEX.parseHex(v[1]);
+            byte[] aad = HEX.parseHex(v[2]);
+            byte[] expected = HEX.parseHex(v[4] + v[5]);
+            assertArrayEquals(expected, gcm.encrypt(iv, aad, HEX.parseHex(v[3])), "IV " + v[1]);
+            assertArrayEquals(HEX.parseHex(v[3]), gcm.decrypt(iv, aad, expected), "IV " + v[1]);
+        }
+    }
+
+    @Test
+    void matchesJdk() throws Exception {
+        Random random = new Random(15);
+        byte[] key = bytes(random, 16);
+        AESGCM gcm = new AESGCM(new AES128(key));
+        for (int ivLength : new int[]{1, 8, 12, 13, 16, 60}) {
+            for (int aadLength : new int[]{0, 1, 5, 16, 20, 33}) {
+                for (int size : new int[]{0, 1, 15, 16, 17, 63, 64, 65, 200, 1000}) {
+                    byte[] iv = bytes(random, ivLength);
+                    byte[] aad = bytes(random, aadLength);
+                    byte[] plaintext = bytes(random, size);
+                    byte[] expected = jdk(key, iv, aad, plaintext);
+                    String label = "IV " + ivLength + ", AAD " + aadLength + ", " + size + " bytes";
+
+                    assertArrayEquals(expected, gcm.encrypt(iv, aad, plaintext), label);
+                    assertArrayEquals(plaintext, gcm.decrypt(iv, aad, expected), label);
+                    if (aadLength == 0) {
+                        // AAD ausente e AAD vazio são a mesma coisa
+                        assertArrayEquals(expected, gcm.encrypt(iv, null, plaintext), label);
+                    }
+
+                    // Cifra e decifra no próprio array, com deslocamento
+                    byte[] buffer = new byte[3 + size + AESGCM.TAG_SIZE];
+                    System.arraycopy(plaintext, 0, buffer, 3, size);
+                    byte[] scratch = new byte[AESGCM.SCRATCH_SIZE];
+                    gcm.encrypt(iv, aad, buffer, 3, size, buffer, 3, scratch);
+                    assertArrayEquals(expected, Arrays.copyOfRange(buffer, 3, buffer.length), label);
+                    assertEquals(size, gcm.decrypt(iv, aad, buffer, 3, size + AESGCM.TAG_SIZE, buffer, 3, scratch));
+                    assertArrayEquals(plaintext, Arrays.copyOfRange(buffer, 3, 3 + size), label);
+                }
+            }
+        }
+    }
+
+    @Test
+    void sealerOpensInPlace() {
+        AESGCM gcm = new AESGCM(new AES128(bytes(new Random(16), 16)));
+        AESProtocol.Sealer client = new AESProtocol.Sealer(gcm);
+        AESProtocol.Sealer server = new AESProtocol.Sealer(gcm);
+        Random random = new Random(17);
+        for (int size : new int[]{0, 1, 15, 16, 17, 100, 4096}) {
+            byte[] plaintext = bytes(random, size);
+            byte[] body = new byte[AESGCM.IV_SIZE + size + AESGCM.TAG_SIZE];
+            int length = client.seal(false, 42, plaintext, 0, size, body, 0);
+            assertEquals(body.length, length);
+            assertArrayEquals(plaintext, AESProtocol.open(gcm, false, 42, body));
+
+            assertEquals(size, server.open(false, 42, body, length));
+            assertArrayEquals(plaintext, Arrays.copyOfRange(body, AESGCM.IV_SIZE, AESGCM.IV_SIZE + size));
+        }
+    }
+
+    // Cada byte do texto cifrado, da tag e do AAD, e cada IV, alterado um de cada vez
+    @Test
+    void rejectsTamperingAndZeroesOutput() {
+        Random random = new Random(18);
+        AESGCM gcm = new AESGCM(new AES128(bytes(random, 16)));
+        byte[] iv = bytes(random, AESGCM.IV_SIZE);
+        byte[] aad = bytes(random, 20);
+        byte[] plaintext = bytes(random, 37);
+        byte[] sealed = gcm.encrypt(iv, aad, plaintext);
+
+        for (int i = 0; i < sealed.length; i++) {
+            byte[] tampered = sealed.clone();
+            tampered[i] ^= 1;
+            assertRejected(gcm, iv, aad, tampered);
+        }
+        for (int i = 0; i < aad.length; i++) {
+            byte[] tampered = aad.clone();
+            tampered[i] ^= (byte) 0x80;
+            assertRejected(gcm, iv, tampered, sealed);
+        }
+        byte[] otherIv = iv.clone();
+        otherIv[11] ^= 1;
+        assertRejected(gcm, otherIv, aad, sealed);
+        assertRejected(gcm, iv, null, sealed);
+        assertThrows(IllegalArgumentException.class, () -> gcm.decrypt(iv, aad, new byte[AESGCM.TAG_SIZE - 1]));
+
+        // No próprio corpo: o texto claro parcial não sobra no lugar do texto cifrado
+        AESProtocol.Sealer sealer = new AESProtocol.Sealer(gcm);
+        byte[] body = new byte[AESGCM.IV_SIZE + plaintext.length + AESGCM.TAG_SIZE];
+        int length = sealer.seal(true, 7, plaintext, 0, plaintext.length, body, 0);
+        body[length - 1] ^= 1;
+        assertThrows(IllegalArgumentException.class, () -> sealer.open(true, 7, body, length));
+        assertArrayEquals(new byte[plaintext.length],
+                Arrays.copyOfRange(body, AESGCM.IV_SIZE, AESGCM.IV_SIZE + plaintext.length));
+        // id ou sentido trocados também falham
+        body[length - 1] ^= 1;
+        byte[] resealed = new byte[length];
+        sealer.seal(true, 7, plaintext, 0, plaintext.length, resealed, 0);
+        assertThrows(IllegalArgumentException.class, () -> AESProtocol.open(gcm, true, 8, resealed));
+        assertThrows(IllegalArgumentException.class, () -> AESProtocol.open(gcm, false, 7, resealed));
+    }
+
+    private static void assertRejected(AESGCM gcm, byte[] iv, byte[] aad, byte[] ciphertext) {
+        int dataLength = ciphertext.length - AESGCM.TAG_SIZE;
+        byte[] out = new byte[dataLength + 2];
+        Arrays.fill(out, (byte) 0x55);
+        assertThrows(IllegalArgumentException.class, () -> gcm.decrypt(iv, aad, ciphertext, 0, ciphertext.length,
+                out, 1, new byte[AESGCM.SCRATCH_SIZE]));
+        byte[] expected = new byte[out.length];
+        expected[0] = 0x55;
+        expected[out.length - 1] = 0x55;
+        assertArrayEquals(expected, out);
+    }
+
+    private static byte[] jdk(byte[] key, byte[] iv, byte[] aad, byte[] input) throws Exception {
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(key, "AES"), new GCMParameterSpec(128, iv));
+        cipher.updateAAD(aad);
+        return cipher.doFinal(input);
+    }
+
+    private static byte[] bytes(Random random, int n) {
+        byte[] b = new byte[n];
+        random.nextBytes(b);
+        return b;
+    }
+}
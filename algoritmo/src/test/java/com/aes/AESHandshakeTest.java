@@ -0,0 +1,161 @@
+package com.aes;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+// Acordo de chaves e retomada de sessão contra o AESTCPServer, e o AESSessionManager isolado para
+// despejo e retomadas concorrentes
+class AESHandshakeTest {
+    private static final String RESPOSTA = "Olá, cliente!";
+
+    @Test
+    void negotiatesAndResumesAgainstServer() throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        AESTCPServer server = new AESTCPServer(new AES128(new byte[16]), port, 4);
+        server.start();
+        try {
+            AESSessionManager sessions = server.getSessionManager();
+            AESSession first;
+            try (AESConnection connection = connect(port, null)) {
+                first = connection.getSession();
+                assertEquals(AESHandshake.SESSION_ID_SIZE, first.id().length);
+                assertExchanges(connection);
+            }
+            assertEquals(1, sessions.getHandshakes());
+            assertEquals(1, sessions.getSessionCount());
+
+            // Retomada: mesma sessão, sem novo acordo
+            try (AESConnection connection = connect(port, first)) {
+                assertSame(first, connection.getSession());
+                assertExchanges(connection);
+            }
+            assertEquals(1, sessions.getHandshakes());
+            assertEquals(1, sessions.getResumptions());
+
+            // Sessão desconhecida: o servidor recusa e o cliente faz o acordo completo
+            AESSession unknown = new AESSession(new byte[AESHandshake.SESSION_ID_SIZE], first.aes());
+            try (AESConnection connection = connect(port, unknown)) {
+                assertFalse(Arrays.equals(first.id(), connection.getSession().id()));
+                assertExchanges(connection);
+            }
+            assertEquals(2, sessions.getHandshakes());
+            assertEquals(1, sessions.getRejected());
+            assertEquals(2, sessions.getSessionCount());
+        } finally {
+            server.shutdown(5, TimeUnit.SECONDS);
+        }
+    }
+
+    // Com limite de uma sessão, o segundo acordo despeja o primeiro, que não pode mais ser retomado
+    @Test
+    void evictedSessionIsNotResumed() throws Exception {
+        AESSessionManager sessions = new AESSessionManager(1);
+        byte[] first = hello(sessions);
+        byte[] second = hello(sessions);
+        assertEquals(1, sessions.getSessionCount());
+
+        assertEquals(AESProtocol.TYPE_ERROR, resume(sessions, first));
+        assertEquals(AESProtocol.TYPE_RESUME, resume(sessions, second));
+        assertEquals(1, sessions.getRejected());
+        assertEquals(1, sessions.getResumptions());
+    }
+
+    // Retomadas concorrentes da mesma sessão recebem todas o mesmo contexto expandido
+    @Test
+    void concurrentResumesShareContext() throws Exception {
+        AESSessionManager sessions = new AESSessionManager(16);
+        byte[] id = hello(sessions);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<AES128>> results = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                results.add(executor.submit(() -> sessions.accept(new AESProtocol.Frame(AESProtocol.TYPE_RESUME, 1,
+                        id), new DataOutputStream(new ByteArrayOutputStream()))));
+            }
+            AES128 shared = results.get(0).get(5, TimeUnit.SECONDS);
+            assertNotNull(shared);
+            for (Future<AES128> result : results) {
+                AES128 aes = result.get(5, TimeUnit.SECONDS);
+                assertSame(shared, aes);
+                sessions.release(aes);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(64, sessions.getResumptions());
+    }
+
+    // Faz um HELLO direto no gerenciador e devolve o id da sessão criada
+    private static byte[] hello(AESSessionManager sessions) throws Exception {
+        byte[] clientPublic = AESHandshake.generateKeyPair().getPublic().getEncoded();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        AES128 aes = sessions.accept(new AESProtocol.Frame(AESProtocol.TYPE_HELLO, 1, clientPublic),
+                new DataOutputStream(bytes));
+        assertNotNull(aes);
+        sessions.release(aes);
+        AESProtocol.Frame reply = read(bytes);
+        assertEquals(AESProtocol.TYPE_HELLO, reply.type());
+        return Arrays.copyOf(reply.body(), AESHandshake.SESSION_ID_SIZE);
+    }
+
+    private static byte resume(AESSessionManager sessions, byte[] id) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        AES128 aes = sessions.accept(new AESProtocol.Frame(AESProtocol.TYPE_RESUME, 2, id),
+                new DataOutputStream(bytes));
+        AESProtocol.Frame reply = read(bytes);
+        if (aes != null) {
+            sessions.release(aes);
+        }
+        return reply.type();
+    }
+
+    private static AESProtocol.Frame read(ByteArrayOutputStream bytes) throws IOException {
+        return AESProtocol.readFrame(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    }
+
+    private static void assertExchanges(AESConnection connection) throws Exception {
+        byte[] message = "mensagem".getBytes(StandardCharsets.UTF_8);
+        assertArrayEquals(RESPOSTA.getBytes(StandardCharsets.UTF_8),
+                connection.send(message).get(5, TimeUnit.SECONDS));
+        assertArrayEquals(RESPOSTA.getBytes(StandardCharsets.UTF_8),
+                connection.sendSealed(message).get(5, TimeUnit.SECONDS));
+    }
+
+    // O servidor abre a porta na própria thread; tenta até ela aceitar
+    private static AESConnection connect(int port, AESSession previous) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (true) {
+            try {
+                return new AESConnection("localhost", port, previous);
+            } catch (ConnectException e) {
+                if (System.nanoTime() > deadline) {
+                    throw e;
+                }
+                Thread.sleep(10);
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.aes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+// Ordem LRU, contadores e o apagamento do escalonamento quando a entrada sai do cache
+class AESKeyCacheTest {
+
+    @Test
+    void evictsLeastRecentlyUsed() {
+        AESKeyCache cache = new AESKeyCache(2);
+        AES128 first = cache.acquire(key(1));
+        AES128 second = cache.acquire(key(2));
+        cache.release(first);
+        cache.release(second);
+
+        // Consultar a chave 1 a torna a mais recente; a chave 3 despeja a 2
+        assertSame(first, cache.acquire(key(1)));
+        cache.release(first);
+        AES128 third = cache.acquire(key(3));
+        cache.release(third);
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertEquals(3, cache.getMisses());
+        assertEquals(1, cache.getHits());
+        assertTrue(second.isDestroyed());
+        assertFalse(first.isDestroyed());
+        assertFalse(third.isDestroyed());
+
+        assertSame(first, cache.acquire(key(1)));
+        AES128 again = cache.acquire(key(2));
+        assertNotSame(second, again);
+        assertEquals(4, cache.getMisses());
+    }
+
+    @Test
+    void keySuppliedByCallerIsCopied() {
+        AESKeyCache cache = new AESKeyCache(4);
+        byte[] key = key(7);
+        AES128 aes = cache.acquire(key);
+        key[0] ^= 1;
+        assertSame(aes, cache.acquire(key(7)));
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    void pinnedInstanceIsDestroyedOnLastRelease() {
+        AESKeyCache cache = new AESKeyCache(1);
+        AES128 aes = cache.acquire(key(1));
+        assertSame(aes, cache.acquire(key(1)));
+
+        cache.release(cache.acquire(key(2)));
+        assertEquals(1, cache.getEvictions());
+        assertFalse(aes.isDestroyed(), "ainda fixada por dois usuários");
+        cache.release(aes);
+        assertFalse(aes.isDestroyed(), "ainda fixada por um usuário");
+        cache.release(aes);
+        assertTrue(aes.isDestroyed());
+        assertThrows(IllegalArgumentException.class, () -> cache.release(aes));
+    }
+
+    @Test
+    void removeAndClearDestroy() {
+        AESKeyCache cache = new AESKeyCache(4);
+        AES128 removed = cache.acquire(key(1));
+        AES128 pinned = cache.acquire(key(2));
+        AES128 cleared = cache.acquire(key(3));
+        cache.release(removed);
+        cache.release(cleared);
+
+        cache.remove(key(1));
+        assertTrue(removed.isDestroyed());
+        assertEquals(2, cache.size());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertTrue(cleared.isDestroyed());
+        assertFalse(pinned.isDestroyed());
+        cache.release(pinned);
+        assertTrue(pinned.isDestroyed());
+        assertEquals(0, cache.getEvictions());
+    }
+
+    @Test
+    void rejectsForeignInstance() {
+        AESKeyCache cache = new AESKeyCache(4);
+        assertThrows(IllegalArgumentException.class, () -> cache.release(new AES128(key(1))));
+        assertThrows(IllegalArgumentException.class, () -> cache.acquire(new byte[15]));
+    }
+
+    private static byte[] key(int n) {
+        byte[] key = new byte[16];
+        key[0] = (byte) n;
+        key[15] = (byte) (n * 31);
+        return key;
+    }
+}
@@ -0,0 +1,97 @@
+package com.aes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+// MESSAGE e SEALED no servidor NIO, com várias requisições em voo na mesma conexão
+class AESNIOServerTest {
+    private static final AES128 AES = new AES128(new byte[16]);
+    private static final String RESPOSTA = "Olá, cliente!";
+
+    private AESNIOServer server;
+    private int port;
+
+    @BeforeEach
+    void startServer() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        server = new AESNIOServer(AES, port, 2);
+        server.start();
+        // O servidor abre a porta na própria thread
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (true) {
+            try (Socket probe = new Socket("localhost", port)) {
+                break;
+            } catch (IOException e) {
+                if (System.nanoTime() > deadline) {
+                    throw e;
+                }
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    @AfterEach
+    void stopServer() throws InterruptedException {
+        server.shutdown();
+    }
+
+    @Test
+    void answersMessageAndSealed() throws Exception {
+        try (AESConnection connection = new AESConnection(AES, "localhost", port)) {
+            List<CompletableFuture<byte[]>> responses = new ArrayList<>();
+            for (int size : new int[]{0, 1, 16, 100, 5000}) {
+                responses.add(connection.sendSealed(new byte[size]));
+                responses.add(connection.send(new byte[size]));
+            }
+            for (CompletableFuture<byte[]> response : responses) {
+                assertEquals(RESPOSTA, new String(response.get(5, TimeUnit.SECONDS), StandardCharsets.UTF_8));
+            }
+        }
+        assertEquals(0, server.getMetrics().getAuthenticationFailures());
+    }
+
+    // Corpo SEALED alterado recebe ERROR e a conexão continua atendendo
+    @Test
+    void refusesTamperedSealed() throws Exception {
+        AESGCM gcm = new AESGCM(AES);
+        try (Socket socket = new Socket("localhost", port)) {
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+
+            byte[] body = AESProtocol.seal(gcm, false, 1, new byte[20]);
+            body[body.length - 1] ^= 1;
+            AESProtocol.writeFrame(out, AESProtocol.TYPE_SEALED, 1, body);
+            // Selado para outro id
+            AESProtocol.writeFrame(out, AESProtocol.TYPE_SEALED, 2, AESProtocol.seal(gcm, false, 3, new byte[20]));
+            AESProtocol.writeFrame(out, AESProtocol.TYPE_SEALED, 4, AESProtocol.seal(gcm, false, 4, new byte[20]));
+            out.flush();
+
+            assertEquals(AESProtocol.TYPE_ERROR, AESProtocol.readFrame(in).type());
+            assertEquals(AESProtocol.TYPE_ERROR, AESProtocol.readFrame(in).type());
+            AESProtocol.Frame accepted = AESProtocol.readFrame(in);
+            assertEquals(AESProtocol.TYPE_SEALED, accepted.type());
+            assertEquals(4, accepted.id());
+            assertEquals(RESPOSTA, new String(AESProtocol.open(gcm, true, 4, accepted.body()), StandardCharsets.UTF_8));
+            // A resposta está ligada ao sentido: não abre como requisição
+            assertThrows(IllegalArgumentException.class, () -> AESProtocol.open(gcm, false, 4, accepted.body()));
+        }
+        assertEquals(2, server.getMetrics().getAuthenticationFailures());
+    }
+}
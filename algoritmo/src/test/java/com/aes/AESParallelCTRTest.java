@@ -0,0 +1,96 @@
+package com.aes;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+// O CTR em paralelo tem de dar byte a byte o mesmo resultado do CTR serial, qualquer que seja a divisão em
+// trechos, inclusive quando o contador dá a volta no meio do buffer
+class AESParallelCTRTest {
+    private static final int[] SIZES = {0, 1, 15, 16, 17, 100, 4095, 4096, 4097, 100_000};
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @AfterEach
+    void stopPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    void matchesSerialCtr() throws Exception {
+        Random random = new Random(4);
+        byte[] key = bytes(random, 16);
+        AES128 aes = new AES128(key);
+        byte[] wrapping = new byte[16];
+        Arrays.fill(wrapping, 8, 16, (byte) 0xFF);
+        wrapping[15] = (byte) 0xF0;
+        for (byte[] iv : new byte[][]{bytes(random, 16), wrapping}) {
+            for (int chunkSize : new int[]{16, 64, 4096}) {
+                AESParallelCTR parallel = new AESParallelCTR(aes, pool, chunkSize);
+                for (int size : SIZES) {
+                    byte[] plaintext = bytes(random, size);
+                    byte[] serial = new byte[size];
+                    aes.processCTR(iv, plaintext, 0, size, serial, 0);
+                    String label = "trecho de " + chunkSize + ", " + size + " bytes";
+                    assertArrayEquals(jdkCtr(key, iv, plaintext), serial, label);
+
+                    // Com deslocamento na entrada e na saída
+                    byte[] in = new byte[size + 5];
+                    System.arraycopy(plaintext, 0, in, 5, size);
+                    byte[] out = new byte[size + 3];
+                    parallel.process(iv, in, 5, size, out, 3);
+                    assertArrayEquals(serial, Arrays.copyOfRange(out, 3, out.length), label);
+
+                    // No próprio buffer
+                    parallel.process(iv, in, 5, size, in, 5);
+                    assertArrayEquals(serial, Arrays.copyOfRange(in, 5, in.length), label);
+                }
+            }
+        }
+    }
+
+    @Test
+    void defaultPoolMatchesSerialCtr() {
+        Random random = new Random(5);
+        AES128 aes = new AES128(bytes(random, 16));
+        byte[] iv = bytes(random, 16);
+        byte[] plaintext = bytes(random, 5 * AESParallelCTR.DEFAULT_CHUNK_SIZE + 7);
+        byte[] serial = new byte[plaintext.length];
+        aes.processCTR(iv, plaintext, 0, plaintext.length, serial, 0);
+        byte[] parallel = new byte[plaintext.length];
+        new AESParallelCTR(aes).process(iv, plaintext, 0, plaintext.length, parallel, 0);
+        assertArrayEquals(serial, parallel);
+    }
+
+    @Test
+    void rejectsInvalidArguments() {
+        AES128 aes = new AES128(new byte[16]);
+        assertThrows(IllegalArgumentException.class, () -> new AESParallelCTR(aes, pool, 0));
+        assertThrows(IllegalArgumentException.class, () -> new AESParallelCTR(aes, pool, 24));
+        AESParallelCTR parallel = new AESParallelCTR(aes, pool, 16);
+        assertThrows(IndexOutOfBoundsException.class,
+                () -> parallel.process(new byte[16], new byte[32], 8, 32, new byte[32], 0));
+        assertThrows(IndexOutOfBoundsException.class,
+                () -> parallel.process(new byte[16], new byte[32], 0, 32, new byte[16], 0));
+    }
+
+    private static byte[] jdkCtr(byte[] key, byte[] iv, byte[] input) throws Exception {
+        Cipher cipher = Cipher.getInstance("AES/CTR/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(key, "AES"), new IvParameterSpec(iv));
+        return cipher.doFinal(input);
+    }
+
+    private static byte[] bytes(Random random, int n) {
+        byte[] b = new byte[n];
+        random.nextBytes(b);
+        return b;
+    }
+}
@@ -0,0 +1,109 @@
+package com.aes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+// Versão automatizada do AllocationBenchmark: os caminhos de cada mensagem sobre buffers reaproveitados não
+// podem alocar nada na thread que os chama (motor TABLE, o padrão). A medição é o contador de bytes
+// alocados da própria thread, descontado o que a leitura do contador aloca.
+class AllocationTest {
+    private static final int WARMUP = 20_000;
+    private static final int ITERATIONS = 10_000;
+    private static final int[] SIZES = {64, 1024};
+
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private AES128 aes;
+    private AESProtocol.Sealer sealer;
+    private byte[] iv;
+    private byte[] in;
+    private byte[] buffer;
+    private byte[] scratch;
+
+    @BeforeEach
+    void setup() {
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+        Random random = new Random(42);
+        byte[] key = new byte[16];
+        random.nextBytes(key);
+        iv = new byte[16];
+        random.nextBytes(iv);
+        in = new byte[1024];
+        random.nextBytes(in);
+        aes = new AES128(key, AES128.Engine.TABLE);
+        sealer = new AESProtocol.Sealer(new AESGCM(aes));
+        buffer = new byte[1024 + 64];
+        scratch = new byte[AES128.SCRATCH_SIZE];
+    }
+
+    @Test
+    void padded() {
+        for (int size : SIZES) {
+            padded(size, WARMUP);
+            long before = allocated();
+            padded(size, ITERATIONS);
+            assertEquals(0, allocated() - before - overhead(), "encryptPadded/decryptPadded, " + size + " bytes");
+        }
+    }
+
+    @Test
+    void ctr() {
+        for (int size : SIZES) {
+            ctr(size, WARMUP);
+            long before = allocated();
+            ctr(size, ITERATIONS);
+            assertEquals(0, allocated() - before - overhead(), "processCTR, " + size + " bytes");
+        }
+    }
+
+    @Test
+    void sealed() {
+        for (int size : SIZES) {
+            sealed(size, WARMUP);
+            long before = allocated();
+            sealed(size, ITERATIONS);
+            assertEquals(0, allocated() - before - overhead(), "Sealer.seal/open, " + size + " bytes");
+        }
+    }
+
+    private int padded(int size, int iterations) {
+        int sum = 0;
+        for (int i = 0; i < iterations; i++) {
+            int length = aes.encryptPadded(in, 0, size, buffer, 0);
+            sum += aes.decryptPadded(buffer, 0, length, buffer, 0);
+        }
+        return sum;
+    }
+
+    private void ctr(int size, int iterations) {
+        for (int i = 0; i < iterations; i++) {
+            aes.processCTR(iv, 0, in, 0, size, buffer, 0, scratch);
+        }
+    }
+
+    private int sealed(int size, int iterations) {
+        int sum = 0;
+        for (int i = 0; i < iterations; i++) {
+            int length = sealer.seal(false, 7, in, 0, size, buffer, 0);
+            sum += sealer.open(false, 7, buffer, length);
+        }
+        return sum;
+    }
+
+    private long allocated() {
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    // Bytes que uma leitura do contador aloca por si só, medidos com uma janela vazia
+    private long overhead() {
+        long before = allocated();
+        return allocated() - before;
+    }
+}
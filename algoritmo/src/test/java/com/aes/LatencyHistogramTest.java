@@ -0,0 +1,71 @@
+package com.aes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+// Percentis com o erro relativo da faixa e janelas que não apagam os totais
+class LatencyHistogramTest {
+
+    @Test
+    void percentilesWithinBucketError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(1000, snapshot.count());
+        assertEquals(500_500, snapshot.mean());
+        assertEquals(1_000_000, snapshot.max());
+        assertNear(500_000, snapshot.p50());
+        assertNear(990_000, snapshot.p99());
+    }
+
+    @Test
+    void windowCoversOnlyNewRecords() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        LatencyHistogram.Window window = histogram.window();
+        for (int i = 0; i < 100; i++) {
+            histogram.record(1_000_000);
+        }
+        LatencyHistogram.Snapshot first = window.snapshot();
+        assertEquals(100, first.count());
+        assertNear(1_000_000, first.p50());
+
+        for (int i = 0; i < 10; i++) {
+            histogram.record(1_000);
+        }
+        LatencyHistogram.Snapshot second = window.snapshot();
+        assertEquals(10, second.count());
+        assertEquals(1_000, second.mean());
+        assertNear(1_000, second.p99());
+        assertNear(1_000, second.max());
+
+        assertEquals(0, window.snapshot().count());
+        // O histograma em si continua com tudo
+        LatencyHistogram.Snapshot total = histogram.snapshot();
+        assertEquals(110, total.count());
+        assertEquals(1_000_000, total.max());
+    }
+
+    @Test
+    void windowRestartsAfterReset() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        LatencyHistogram.Window window = histogram.window();
+        for (int i = 0; i < 50; i++) {
+            histogram.record(5_000);
+        }
+        window.snapshot();
+        histogram.reset();
+        for (int i = 0; i < 3; i++) {
+            histogram.record(5_000);
+        }
+        assertEquals(3, window.snapshot().count());
+    }
+
+    // Erro relativo máximo de uma faixa: 1/8
+    private static void assertNear(long expected, long actual) {
+        assertTrue(Math.abs(actual - expected) <= expected / 8, "esperado ~" + expected + ", veio " + actual);
+    }
+}
@@ -0,0 +1,195 @@
+package com.aes;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Gera VectorSbox.java a partir do circuito da S-box em BitslicedEngine.crypt, para que os dois motores
+// rodem o mesmo circuito sem uma cópia mantida à mão. Roda no generate-sources do perfil vector:
+//     java src/vector/build/GenerateSbox.java <BitslicedEngine.java> <VectorSbox.java>
+// O trecho entre os marcadores só pode ter declarações long, atribuições com ^, &, ~ e parênteses,
+// if (inverse) / else e comentários; qualquer outra linha interrompe o build em vez de gerar código errado.
+public final class GenerateSbox {
+    private static final String BEGIN = "// início do circuito da S-box";
+    private static final String END = "// fim do circuito da S-box";
+
+    private static final Pattern DECLARATION = Pattern.compile("long ([a-z0-9]+(?:, [a-z0-9]+)*);");
+    private static final Pattern ASSIGNMENT = Pattern.compile("(long )?([a-z0-9]+) = (.+);");
+    private static final Pattern TOKEN = Pattern.compile("\\s*([A-Za-z_][A-Za-z0-9_]*|[()^&~])");
+
+    private GenerateSbox() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Uso: GenerateSbox <BitslicedEngine.java> <VectorSbox.java>");
+        }
+        List<String> circuit = circuit(Files.readAllLines(Path.of(args[0]), StandardCharsets.UTF_8));
+
+        StringBuilder out = new StringBuilder();
+        out.append("package com.aes;\n\n");
+        out.append("import static jdk.incubator.vector.VectorOperators.XOR;\n\n");
+        out.append("import java.nio.ByteOrder;\n");
+        out.append("import jdk.incubator.vector.LongVector;\n");
+        out.append("import jdk.incubator.vector.VectorSpecies;\n\n");
+        out.append("// Gerado por src/vector/build/GenerateSbox.java a partir de BitslicedEngine.crypt; não edite.\n");
+        out.append("final class VectorSbox {\n");
+        out.append("    private static final VectorSpecies<Long> SPECIES = VectorEngine.SPECIES;\n");
+        out.append("    private static final int STEP = VectorEngine.STEP;\n");
+        out.append("    private static final ByteOrder ORDER = VectorEngine.ORDER;\n\n");
+        out.append("    private VectorSbox() {\n");
+        out.append("    }\n\n");
+        out.append("    // S-box (ou a inversa) nos 8 planos de uma passada do VectorEngine, no próprio lugar\n");
+        out.append("    static void subBytes(byte[] s, int off, boolean inverse) {\n");
+        for (int b = 0; b < 8; b++) {
+            out.append("        LongVector q").append(b).append(" = LongVector.fromByteArray(SPECIES, s, ")
+                    .append(offset(b)).append(", ORDER);\n");
+        }
+        for (String line : circuit) {
+            out.append(line.isEmpty() ? "" : "        " + line).append('\n');
+        }
+        for (int b = 0; b < 8; b++) {
+            out.append("        q").append(b).append(".intoByteArray(s, ").append(offset(b)).append(", ORDER);\n");
+        }
+        out.append("    }\n");
+        out.append("}\n");
+
+        Path target = Path.of(args[1]);
+        Files.createDirectories(target.getParent());
+        Files.writeString(target, out, StandardCharsets.UTF_8);
+    }
+
+    private static String offset(int b) {
+        return b == 0 ? "off" : b == 1 ? "off + STEP" : "off + " + b + " * STEP";
+    }
+
+    // Linhas entre os marcadores já traduzidas, com a indentação relativa ao primeiro nível do trecho
+    private static List<String> circuit(List<String> source) {
+        int begin = -1;
+        int end = -1;
+        for (int i = 0; i < source.size(); i++) {
+            String line = source.get(i).trim();
+            if (line.equals(BEGIN)) {
+                begin = i;
+            } else if (line.equals(END)) {
+                end = i;
+            }
+        }
+        if (begin < 0 || end < begin) {
+            throw new IllegalStateException("Marcadores do circuito da S-box não encontrados");
+        }
+        String base = indentation(source.get(begin));
+        List<String> lines = new ArrayList<>();
+        for (int i = begin + 1; i < end; i++) {
+            String line = source.get(i);
+            if (line.isBlank()) {
+                lines.add("");
+                continue;
+            }
+            if (!line.startsWith(base)) {
+                throw new IllegalStateException("Indentação inesperada na linha " + (i + 1) + ": " + line);
+            }
+            lines.add(indentation(line).substring(base.length()) + translate(line.trim(), i + 1));
+        }
+        return lines;
+    }
+
+    private static String translate(String line, int number) {
+        if (line.startsWith("//") || line.equals("if (inverse) {") || line.equals("} else {") || line.equals("}")) {
+            return line;
+        }
+        Matcher declaration = DECLARATION.matcher(line);
+        if (declaration.matches()) {
+            return "LongVector " + declaration.group(1) + ";";
+        }
+        Matcher assignment = ASSIGNMENT.matcher(line);
+        if (assignment.matches()) {
+            String type = assignment.group(1) != null ? "LongVector " : "";
+            return type + assignment.group(2) + " = " + new Expression(assignment.group(3), number).parse() + ";";
+        }
+        throw new IllegalStateException("Linha fora do formato do circuito (" + number + "): " + line);
+    }
+
+    private static String indentation(String line) {
+        return line.substring(0, line.length() - line.stripLeading().length());
+    }
+
+    // Precedência do Java: ~ antes de &, & antes de ^. a ^ b vira a.lanewise(XOR, b), a & b vira a.and(b) e
+    // ~a vira a.not(); cada operação encadeia na anterior, então a ordem de avaliação é a mesma do escalar.
+    private static final class Expression {
+        private final List<String> tokens = new ArrayList<>();
+        private final int number;
+        private int next;
+
+        Expression(String text, int number) {
+            this.number = number;
+            Matcher matcher = TOKEN.matcher(text);
+            int at = 0;
+            while (at < text.length()) {
+                if (!matcher.find(at) || matcher.start() != at) {
+                    throw error("caractere inesperado em '" + text.substring(at).trim() + "'");
+                }
+                tokens.add(matcher.group(1));
+                at = matcher.end();
+            }
+        }
+
+        String parse() {
+            String result = xor();
+            if (next != tokens.size()) {
+                throw error("sobra '" + tokens.get(next) + "'");
+            }
+            return result;
+        }
+
+        private String xor() {
+            String result = and();
+            while (accept("^")) {
+                result = result + ".lanewise(XOR, " + and() + ")";
+            }
+            return result;
+        }
+
+        private String and() {
+            String result = unary();
+            while (accept("&")) {
+                result = result + ".and(" + unary() + ")";
+            }
+            return result;
+        }
+
+        private String unary() {
+            if (accept("~")) {
+                return unary() + ".not()";
+            }
+            if (accept("(")) {
+                String inner = xor();
+                if (!accept(")")) {
+                    throw error("falta ')'");
+                }
+                return inner;
+            }
+            if (next < tokens.size() && Character.isLetter(tokens.get(next).charAt(0))) {
+                return tokens.get(next++);
+            }
+            throw error("operando esperado");
+        }
+
+        private boolean accept(String token) {
+            if (next < tokens.size() && tokens.get(next).equals(token)) {
+                next++;
+                return true;
+            }
+            return false;
+        }
+
+        private IllegalStateException error(String message) {
+            return new IllegalStateException("Expressão inválida na linha " + number + ": " + message);
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package com.aes;
+
+import static jdk.incubator.vector.VectorOperators.LSHL;
+import static jdk.incubator.vector.VectorOperators.LSHR;
+import static jdk.incubator.vector.VectorOperators.ROR;
+import static jdk.incubator.vector.VectorOperators.XOR;
+
+import java.nio.ByteOrder;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorShuffle;
+import jdk.incubator.vector.VectorSpecies;
+
+// O circuito do BitslicedEngine sobre a Vector API: cada faixa de um LongVector guarda um lote de 4 blocos,
+// então uma passada cifra 4 blocos por faixa (32 com AVX-512, 16 com AVX2) com as mesmas instruções.
+// Depende do módulo incubado jdk.incubator.vector (java --add-modules jdk.incubator.vector); o AES128 só
+// carrega esta classe por reflexão quando o módulo e a classe estão presentes. Blocos avulsos, ByteBuffer e sobras
+// menores que uma passada ficam com o BitslicedEngine, que usa o mesmo formato de chave.
+//
+// O C2 só transforma LongVector em registradores quando todas as chamadas da Vector API são inlined; se
+// uma fica de fora, cada operação passa a alocar um objeto. Por isso cada etapa da rodada é um método
+// curto que lê e grava os 8 planos no trecho de saída da própria passada, e as operações chamam a API
+// diretamente: os métodos dela escapam do limite de inlining do C2, um auxiliar nosso não escapa.
+//
+// A S-box fica em VectorSbox, gerado no build (src/vector/build/GenerateSbox.java) a partir do circuito do
+// BitslicedEngine: o circuito existe só lá. Esta classe e a gerada só compilam no perfil Maven vector
+// (mvn -Pvector), que acrescenta --add-modules jdk.incubator.vector; o build padrão não as vê.
+final class VectorEngine extends BitslicedEngine {
+    private static final int Nr = AES128.Nr;
+
+    static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+    private static final int LENGTH = SPECIES.length();
+    private static final int PASS = LANES * LENGTH;
+    static final int STEP = 8 * LENGTH;
+    static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    // Faixas 2i e 2i + 1 trocadas: as duas metades de um bloco chegam em faixas vizinhas do mesmo vetor
+    private static final VectorShuffle<Long> PAIRS = VectorShuffle.fromOp(SPECIES, i -> i ^ 1);
+    private static final VectorMask<Long> ODD = VectorMask.fromLong(SPECIES, 0xAAAAAAAAAAAAAAAAL);
+
+    // Precisa de ao menos 2 faixas de 64 bits para juntar as metades de cada bloco
+    static boolean isSupported() {
+        return LENGTH >= 2;
+    }
+
+    @Override
+    public void encryptBlocks(int[] rk, byte[] in, int inOff, byte[] out, int outOff, int blocks) {
+        int done = blocks - blocks % PASS;
+        for (int i = 0; i < done; i += PASS) {
+            int off = outOff + 16 * i;
+            split(in, inOff + 16 * i, out, off);
+            toPlanes(out, off);
+            addRoundKey(out, off, rk, 0);
+            for (int round = 1; round < Nr; round++) {
+                VectorSbox.subBytes(out, off, false);
+                shiftRows(out, off);
+                mixColumns(out, off);
+                addRoundKey(out, off, rk, round);
+            }
+            VectorSbox.subBytes(out, off, false);
+            shiftRows(out, off);
+            addRoundKey(out, off, rk, Nr);
+            fromPlanes(out, off);
+            join(out, off);
+        }
+        super.encryptBlocks(rk, in, inOff + 16 * done, out, outOff + 16 * done, blocks - done);
+    }
+
+    // Cifra inversa equivalente, com o mesmo escalonamento inverso das outras implementações
+    @Override
+    public void decryptBlocks(int[] rk, byte[] in, int inOff, byte[] out, int outOff, int blocks) {
+        int done = blocks - blocks % PASS;
+        for (int i = 0; i < done; i += PASS) {
+            int off = outOff + 16 * i;
+            split(in, inOff + 16 * i, out, off);
+            toPlanes(out, off);
+            addRoundKey(out, off, rk, 0);
+            for (int round = 1; round < Nr; round++) {
+                VectorSbox.subBytes(out, off, true);
+                invShiftRows(out, off);
+                invMixColumns(out, off);
+                mixColumns(out, off);
+                addRoundKey(out, off, rk, round);
+            }
+            VectorSbox.subBytes(out, off, true);
+            invShiftRows(out, off);
+            addRoundKey(out, off, rk, Nr);
+            fromPlanes(out, off);
+            join(out, off);
+        }
+        super.decryptBlocks(rk, in, inOff + 16 * done, out, outOff + 16 * done, blocks - done);
+    }
+
+    // Cada par de vetores lidos traz metades de bloco intercaladas; PAIRS e ODD separam as primeiras das
+    // segundas, que vão para os vetores 2p e 2p + 1 da passada em s. Cada par é lido antes de ser gravado no
+    // mesmo lugar, então in == s no mesmo offset é aceito
+    private static void split(byte[] in, int inOff, byte[] s, int off) {
+        for (int p = 0; p < 8; p += 2) {
+            LongVector a = LongVector.fromByteArray(SPECIES, in, inOff + p * STEP, ORDER);
+            LongVector b = LongVector.fromByteArray(SPECIES, in, inOff + (p + 1) * STEP, ORDER);
+            toRows(a.blend(b.rearrange(PAIRS), ODD)).intoByteArray(s, off + p * STEP, ORDER);
+            toRows(a.rearrange(PAIRS).blend(b, ODD)).intoByteArray(s, off + (p + 1) * STEP, ORDER);
+        }
+    }
+
+    private static void join(byte[] s, int off) {
+        for (int p = 0; p < 8; p += 2) {
+            LongVector a = fromRows(LongVector.fromByteArray(SPECIES, s, off + p * STEP, ORDER));
+            LongVector b = fromRows(LongVector.fromByteArray(SPECIES, s, off + (p + 1) * STEP, ORDER));
+            a.blend(b.rearrange(PAIRS), ODD).intoByteArray(s, off + p * STEP, ORDER);
+            a.rearrange(PAIRS).blend(b, ODD).intoByteArray(s, off + (p + 1) * STEP, ORDER);
+        }
+    }
+
+    // A transposição 8x8 do BitslicedEngine, com as primeiras metades (q0..q3) nos vetores pares
+    private static void toPlanes(byte[] s, int off) {
+        LongVector q0 = LongVector.fromByteArray(SPECIES, s, off, ORDER);
+        LongVector q1 = LongVector.fromByteArray(SPECIES, s, off + 2 * STEP, ORDER);
+        LongVector q2 = LongVector.fromByteArray(SPECIES, s, off + 4 * STEP, ORDER);
+        LongVector q3 = LongVector.fromByteArray(SPECIES, s, off + 6 * STEP, ORDER);
+        LongVector q4 = LongVector.fromByteArray(SPECIES, s, off + STEP, ORDER);
+        LongVector q5 = LongVector.fromByteArray(SPECIES, s, off + 3 * STEP, ORDER);
+        LongVector q6 = LongVector.fromByteArray(SPECIES, s, off + 5 * STEP, ORDER);
+        LongVector q7 = LongVector.fromByteArray(SPECIES, s, off + 7 * STEP, ORDER);
+
+        LongVector t;
+        t = q0.lanewise(LSHR, 1).lanewise(XOR, q1).and(0x5555555555555555L);
+        q1 = q1.lanewise(XOR, t);
+        q0 = q0.lanewise(XOR, t.lanewise(LSHL, 1));
+        t = q2.lanewise(LSHR, 1).lanewise(XOR, q3).and(0x5555555555555555L);
+        q3 = q3.lanewise(XOR, t);
+        q2 = q2.lanewise(XOR, t.lanewise(LSHL, 1));
+        t = q4.lanewise(LSHR, 1).lanewise(XOR, q5).and(0x5555555555555555L);
+        q5 = q5.lanewise(XOR, t);
+        q4 = q4.lanewise(XOR, t.lanewise(LSHL, 1));
+        t = q6.lanewise(LSHR, 1).lanewise(XOR, q7).and(0x5555555555555555L);
+        q7 = q7.lanewise(XOR, t);
+        q6 = q6.lanewise(XOR, t.lanewise(LSHL, 1));
+        t = q0.lanewise(LSHR, 2).lanewise(XOR, q2).and(0x3333333333333333L);
+        q2 = q2.lanewise(XOR, t);
+        q0 = q0.lanewise(XOR, t.lanewise(LSHL, 2));
+        t = q1.lanewise(LSHR, 2).lanewise(XOR, q3).and(0x3333333333333333L);
+        q3 = q3.lanewise(XOR, t);
+        q1 = q1.lanewise(XOR, t.lanewise(LSHL, 2));
+        t = q4.lanewise(LSHR, 2).lanewise(XOR, q6).and(0x3333333333333333L);
+        q6 = q6.lanewise(XOR, t);
+        q4 = q4.lanewise(XOR, t.lanewise(LSHL, 2));
+        t = q5.lanewise(LSHR, 2).lanewise(XOR, q7).and(0x3333333333333333L);
+        q7 = q7.lanewise(XOR, t);
+        q5 = q5.lanewise(XOR, t.lanewise(LSHL, 2));
+        t = q0.lanewise(LSHR, 4).lanewise(XOR, q4).and(0x0F0F0F0F0F0F0F0FL);
+        q4 = q4.lanewise(XOR, t);
+        q0 = q0.lanewise(XOR, t.lanewise(LSHL, 4));
+        t = q1.lanewise(LSHR, 4).lanewise(XOR, q5).and(0x0F0F0F0F0F0F0F0FL);
+        q5 = q5.lanewise(XOR, t);
+        q1 = q1.lanewise(XOR, t.lanewise(LSHL, 4));
+        t = q2.lanewise(LSHR, 4).lanewise(XOR, q6).and(0x0F0F0F0F0F0F0F0FL);
+        q6 = q6.lanewise(XOR, t);
+        q2 = q2.lanewise(XOR, t.lanewise(LSHL, 4));
+        t = q3.lanewise(LSHR, 4).lanewise(XOR, q7).and(0x0F0F0F0F0F0F0F0FL);
+        q7 = q7.lanewise(XOR, t);
+        q3 = q3.lanewise(XOR, t.lanewise(LSHL, 4));
+        q0.intoByteArray(s, off, ORDER);
+        q1.intoByteArray(s, off + STEP, ORDER);
+        q2.intoByteArray(s, off + 2 * STEP, ORDER);
+        q3.intoByteArray(s, off + 3 * STEP, ORDER);
+        q4.intoByteArray(s, off + 4 * STEP, ORDER);
+        q5.intoByteArray(s, off + 5 * STEP, ORDER);
+        q6.intoByteArray(s, off + 6 * STEP, ORDER);
+        q7.intoByteArray(s, off + 7 * STEP, ORDER);
+    }
+
+    // A transposição é sua própria inversa; só a ordem de volta dos vetores muda
+    private static void fromPlanes(byte[] s, int off) {
+        LongVector q0 = LongVector.fromByteArray(SPECIES, s, off, ORDER);
+        LongVector q1 = LongVector.fromByteArray(SPECIES, s, off + STEP, ORDER);
+        LongVector q2 = LongVector.fromByteArray(SPECIES, s, off + 2 * STEP, ORDER);
+        LongVector q3 = LongVector.fromByteArray(SPECIES, s, off + 3 * STEP, ORDER);
+        LongVector q4 = LongVector.fromByteArray(SPECIES, s, off + 4 * STEP, ORDER);
+        LongVector q5 = LongVector.fromByteArray(SPECIES, s, off + 5 * STEP, ORDER);
+        LongVector q6 = LongVector.fromByteArray(SPECIES, s, off + 6 * STEP, ORDER);
+        LongVector q7 = LongVector.fromByteArray(SPECIES, s, off + 7 * STEP, ORDER);
+
+        LongVector t;
+        t = q0.lanewise(LSHR, 1).lanewise(XOR, q1).and(0x5555555555555555L);
+        q1 = q1.lanewise(XOR, t);
+        q0 = q0.lanewise(XOR, t.lanewise(LSHL, 1));
+        t = q2.lanewise(LSHR, 1).lanewise(XOR, q3).and(0x5555555555555555L);
+        q3 = q3.lanewise(XOR, t);
+        q2 = q2.lanewise(XOR, t.lanewise(LSHL, 1));
+        t = q4.lanewise(LSHR, 1).lanewise(XOR, q5).and(0x5555555555555555L);
+        q5 = q5.lanewise(XOR, t);
+        q4 = q4.lanewise(XOR, t.lanewise(LSHL, 1));
+        t = q6.lanewise(LSHR, 1).lanewise(XOR, q7).and(0x5555555555555555L);
+        q7 = q7.lanewise(XOR, t);
+        q6 = q6.lanewise(XOR, t.lanewise(LSHL, 1));
+        t = q0.lanewise(LSHR, 2).lanewise(XOR, q2).and(0x3333333333333333L);
+        q2 = q2.lanewise(XOR, t);
+        q0 = q0.lanewise(XOR, t.lanewise(LSHL, 2));
+        t = q1.lanewise(LSHR, 2).lanewise(XOR, q3).and(0x3333333333333333L);
+        q3 = q3.lanewise(XOR, t);
+        q1 = q1.lanewise(XOR, t.lanewise(LSHL, 2));
+        t = q4.lanewise(LSHR, 2).lanewise(XOR, q6).and(0x3333333333333333L);
+        q6 = q6.lanewise(XOR, t);
+        q4 = q4.lanewise(XOR, t.lanewise(LSHL, 2));
+        t = q5.lanewise(LSHR, 2).lanewise(XOR, q7).and(0x3333333333333333L);
+        q7 = q7.lanewise(XOR, t);
+        q5 = q5.lanewise(XOR, t.lanewise(LSHL, 2));
+        t = q0.lanewise(LSHR, 4).lanewise(XOR, q4).and(0x0F0F0F0F0F0F0F0FL);
+        q4 = q4.lanewise(XOR, t);
+        q0 = q0.lanewise(XOR, t.lanewise(LSHL, 4));
+        t = q1.lanewise(LSHR, 4).lanewise(XOR, q5).and(0x0F0F0F0F0F0F0F0FL);
+        q5 = q5.lanewise(XOR, t);
+        q1 = q1.lanewise(XOR, t.lanewise(LSHL, 4));
+        t = q2.lanewise(LSHR, 4).lanewise(XOR, q6).and(0x0F0F0F0F0F0F0F0FL);
+        q6 = q6.lanewise(XOR, t);
+        q2 = q2.lanewise(XOR, t.lanewise(LSHL, 4));
+        t = q3.lanewise(LSHR, 4).lanewise(XOR, q7).and(0x0F0F0F0F0F0F0F0FL);
+        q7 = q7.lanewise(XOR, t);
+        q3 = q3.lanewise(XOR, t.lanewise(LSHL, 4));
+        q0.intoByteArray(s, off, ORDER);
+        q1.intoByteArray(s, off + 2 * STEP, ORDER);
+        q2.intoByteArray(s, off + 4 * STEP, ORDER);
+        q3.intoByteArray(s, off + 6 * STEP, ORDER);
+        q4.intoByteArray(s, off + STEP, ORDER);
+        q5.intoByteArray(s, off + 3 * STEP, ORDER);
+        q6.intoByteArray(s, off + 5 * STEP, ORDER);
+        q7.intoByteArray(s, off + 7 * STEP, ORDER);
+    }
+
+    private static void addRoundKey(byte[] s, int off, int[] rk, int round) {
+        for (int b = 0; b < 8; b++) {
+            LongVector x = LongVector.fromByteArray(SPECIES, s, off + b * STEP, ORDER);
+            x.lanewise(XOR, roundKey(rk, round, b)).intoByteArray(s, off + b * STEP, ORDER);
+        }
+    }
+
+    private static void shiftRows(byte[] s, int off) {
+        for (int b = 0; b < 8; b++) {
+            LongVector x = LongVector.fromByteArray(SPECIES, s, off + b * STEP, ORDER);
+            x.and(0x000000000000FFFFL)
+                    .or(x.lanewise(LSHR, 12).and(0x000F000000000000L)).or(x.lanewise(LSHR, 8).and(0x0000000000FF0000L))
+                    .or(x.lanewise(LSHR, 4).and(0x00F00F0F00000000L)).or(x.lanewise(LSHL, 4).and(0x0000F0F00F000000L))
+                    .or(x.lanewise(LSHL, 8).and(0xFF00000000000000L)).or(x.lanewise(LSHL, 12).and(0x00000000F0000000L))
+                    .intoByteArray(s, off + b * STEP, ORDER);
+        }
+    }
+
+    private static void invShiftRows(byte[] s, int off) {
+        for (int b = 0; b < 8; b++) {
+            LongVector x = LongVector.fromByteArray(SPECIES, s, off + b * STEP, ORDER);
+            x.and(0x000000000000FFFFL)
+                    .or(x.lanewise(LSHR, 12).and(0x00000000000F0000L)).or(x.lanewise(LSHR, 8).and(0x00FF000000000000L))
+                    .or(x.lanewise(LSHR, 4).and(0x00000F0F00F00000L)).or(x.lanewise(LSHL, 4).and(0x0F00F0F000000000L))
+                    .or(x.lanewise(LSHL, 8).and(0x00000000FF000000L)).or(x.lanewise(LSHL, 12).and(0xF000000000000000L))
+                    .intoByteArray(s, off + b * STEP, ORDER);
+        }
+    }
+
+    // Ver BitslicedEngine para a derivação
+    private static void mixColumns(byte[] s, int off) {
+        LongVector q0 = LongVector.fromByteArray(SPECIES, s, off, ORDER);
+        LongVector q1 = LongVector.fromByteArray(SPECIES, s, off + STEP, ORDER);
+        LongVector q2 = LongVector.fromByteArray(SPECIES, s, off + 2 * STEP, ORDER);
+        LongVector q3 = LongVector.fromByteArray(SPECIES, s, off + 3 * STEP, ORDER);
+        LongVector q4 = LongVector.fromByteArray(SPECIES, s, off + 4 * STEP, ORDER);
+        LongVector q5 = LongVector.fromByteArray(SPECIES, s, off + 5 * STEP, ORDER);
+        LongVector q6 = LongVector.fromByteArray(SPECIES, s, off + 6 * STEP, ORDER);
+        LongVector q7 = LongVector.fromByteArray(SPECIES, s, off + 7 * STEP, ORDER);
+        LongVector r0 = q0.lanewise(ROR, 16), m0 = q0.lanewise(XOR, r0);
+        LongVector r1 = q1.lanewise(ROR, 16), m1 = q1.lanewise(XOR, r1);
+        LongVector r2 = q2.lanewise(ROR, 16), m2 = q2.lanewise(XOR, r2);
+        LongVector r3 = q3.lanewise(ROR, 16), m3 = q3.lanewise(XOR, r3);
+        LongVector r4 = q4.lanewise(ROR, 16), m4 = q4.lanewise(XOR, r4);
+        LongVector r5 = q5.lanewise(ROR, 16), m5 = q5.lanewise(XOR, r5);
+        LongVector r6 = q6.lanewise(ROR, 16), m6 = q6.lanewise(XOR, r6);
+        LongVector r7 = q7.lanewise(ROR, 16), m7 = q7.lanewise(XOR, r7);
+        q0 = m7.lanewise(XOR, r0).lanewise(XOR, m0.lanewise(ROR, 32));
+        q1 = m0.lanewise(XOR, m7).lanewise(XOR, r1).lanewise(XOR, m1.lanewise(ROR, 32));
+        q2 = m1.lanewise(XOR, r2).lanewise(XOR, m2.lanewise(ROR, 32));
+        q3 = m2.lanewise(XOR, m7).lanewise(XOR, r3).lanewise(XOR, m3.lanewise(ROR, 32));
+        q4 = m3.lanewise(XOR, m7).lanewise(XOR, r4).lanewise(XOR, m4.lanewise(ROR, 32));
+        q5 = m4.lanewise(XOR, r5).lanewise(XOR, m5.lanewise(ROR, 32));
+        q6 = m5.lanewise(XOR, r6).lanewise(XOR, m6.lanewise(ROR, 32));
+        q7 = m6.lanewise(XOR, r7).lanewise(XOR, m7.lanewise(ROR, 32));
+        q0.intoByteArray(s, off, ORDER);
+        q1.intoByteArray(s, off + STEP, ORDER);
+        q2.intoByteArray(s, off + 2 * STEP, ORDER);
+        q3.intoByteArray(s, off + 3 * STEP, ORDER);
+        q4.intoByteArray(s, off + 4 * STEP, ORDER);
+        q5.intoByteArray(s, off + 5 * STEP, ORDER);
+        q6.intoByteArray(s, off + 6 * STEP, ORDER);
+        q7.intoByteArray(s, off + 7 * STEP, ORDER);
+    }
+
+    // Parte do InvMixColumns que antecede o MixColumns: a_r ^= 4·(a_r ^ a_r+2)
+    private static void invMixColumns(byte[] s, int off) {
+        LongVector q0 = LongVector.fromByteArray(SPECIES, s, off, ORDER);
+        LongVector q1 = LongVector.fromByteArray(SPECIES, s, off + STEP, ORDER);
+        LongVector q2 = LongVector.fromByteArray(SPECIES, s, off + 2 * STEP, ORDER);
+        LongVector q3 = LongVector.fromByteArray(SPECIES, s, off + 3 * STEP, ORDER);
+        LongVector q4 = LongVector.fromByteArray(SPECIES, s, off + 4 * STEP, ORDER);
+        LongVector q5 = LongVector.fromByteArray(SPECIES, s, off + 5 * STEP, ORDER);
+        LongVector q6 = LongVector.fromByteArray(SPECIES, s, off + 6 * STEP, ORDER);
+        LongVector q7 = LongVector.fromByteArray(SPECIES, s, off + 7 * STEP, ORDER);
+        LongVector u0 = q0.lanewise(XOR, q0.lanewise(ROR, 32));
+        LongVector u1 = q1.lanewise(XOR, q1.lanewise(ROR, 32));
+        LongVector u2 = q2.lanewise(XOR, q2.lanewise(ROR, 32));
+        LongVector u3 = q3.lanewise(XOR, q3.lanewise(ROR, 32));
+        LongVector u4 = q4.lanewise(XOR, q4.lanewise(ROR, 32));
+        LongVector u5 = q5.lanewise(XOR, q5.lanewise(ROR, 32));
+        LongVector u6 = q6.lanewise(XOR, q6.lanewise(ROR, 32));
+        LongVector u7 = q7.lanewise(XOR, q7.lanewise(ROR, 32));
+        q0.lanewise(XOR, u6).intoByteArray(s, off, ORDER);
+        q1.lanewise(XOR, u6).lanewise(XOR, u7).intoByteArray(s, off + STEP, ORDER);
+        q2.lanewise(XOR, u0).lanewise(XOR, u7).intoByteArray(s, off + 2 * STEP, ORDER);
+        q3.lanewise(XOR, u1).lanewise(XOR, u6).intoByteArray(s, off + 3 * STEP, ORDER);
+        q4.lanewise(XOR, u2).lanewise(XOR, u6).lanewise(XOR, u7).intoByteArray(s, off + 4 * STEP, ORDER);
+        q5.lanewise(XOR, u3).lanewise(XOR, u7).intoByteArray(s, off + 5 * STEP, ORDER);
+        q6.lanewise(XOR, u4).intoByteArray(s, off + 6 * STEP, ORDER);
+        q7.lanewise(XOR, u5).intoByteArray(s, off + 7 * STEP, ORDER);
+    }
+
+    private static LongVector toRows(LongVector x) {
+        LongVector t = x.lanewise(XOR, x.lanewise(LSHR, 16)).and(0x00000000FFFF0000L);
+        x = x.lanewise(XOR, t).lanewise(XOR, t.lanewise(LSHL, 16));
+        t = x.lanewise(XOR, x.lanewise(LSHR, 8)).and(0x0000FF000000FF00L);
+        return x.lanewise(XOR, t).lanewise(XOR, t.lanewise(LSHL, 8));
+    }
+
+    private static LongVector fromRows(LongVector x) {
+        LongVector t = x.lanewise(XOR, x.lanewise(LSHR, 8)).and(0x0000FF000000FF00L);
+        x = x.lanewise(XOR, t).lanewise(XOR, t.lanewise(LSHL, 8));
+        t = x.lanewise(XOR, x.lanewise(LSHR, 16)).and(0x00000000FFFF0000L);
+        return x.lanewise(XOR, t).lanewise(XOR, t.lanewise(LSHL, 16));
+    }
+}
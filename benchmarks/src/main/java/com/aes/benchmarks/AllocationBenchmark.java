@@ -0,0 +1,61 @@
+package com.aes.benchmarks;
+
+import com.aes.AES128;
+import com.aes.AESGCM;
+import com.aes.AESProtocol;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// Caminhos usados pelo servidor a cada mensagem, todos sobre buffers reaproveitados.
+// Rode com -prof gc: gc.alloc.rate.norm deve ficar perto de 0 B/op.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AllocationBenchmark {
+    @Param({"64", "1024"})
+    public int size;
+
+    private AES128 aes;
+    private AESProtocol.Sealer sealer;
+    private byte[] iv;
+    private byte[] in;
+    private byte[] buffer;
+    private byte[] scratch;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        byte[] key = new byte[16];
+        random.nextBytes(key);
+        iv = new byte[16];
+        random.nextBytes(iv);
+        in = new byte[size];
+        random.nextBytes(in);
+        aes = new AES128(key);
+        sealer = new AESProtocol.Sealer(new AESGCM(aes));
+        buffer = new byte[size + 64];
+        scratch = new byte[AES128.SCRATCH_SIZE];
+    }
+
+    @Benchmark
+    public int padded() {
+        int length = aes.encryptPadded(in, 0, size, buffer, 0);
+        return aes.decryptPadded(buffer, 0, length, buffer, 0);
+    }
+
+    @Benchmark
+    public byte[] ctr() {
+        aes.processCTR(iv, 0, in, 0, size, buffer, 0, scratch);
+        return buffer;
+    }
+
+    @Benchmark
+    public int sealed() {
+        int length = sealer.seal(false, 7, in, 0, size, buffer, 0);
+        return sealer.open(false, 7, buffer, length);
+    }
+}
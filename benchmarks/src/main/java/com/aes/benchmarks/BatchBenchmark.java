@@ -0,0 +1,78 @@
+package com.aes.benchmarks;
+
+import com.aes.AES128;
+import com.aes.AESConnection;
+import com.aes.AESTCPServer;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// Mensagens pequenas pelo loopback: batch manda as batchSize mensagens num único quadro BATCH,
+// pipelined manda as mesmas mensagens em quadros MESSAGE com todas em voo. Ambos em mensagens/s.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchBenchmark {
+    @Param({"16", "256"})
+    public int messageSize;
+
+    private static final int BATCH_SIZE = 256;
+
+    private AESTCPServer server;
+    private AESConnection connection;
+    private List<byte[]> messages;
+
+    @Setup
+    public void setup() throws Exception {
+        AES128 aes = new AES128(new byte[16]);
+        int port;
+        try (ServerSocket probe = new ServerSocket(0)) {
+            port = probe.getLocalPort();
+        }
+        server = new AESTCPServer(aes, port);
+        server.start();
+        for (int attempt = 0; connection == null; attempt++) {
+            try {
+                connection = new AESConnection(aes, "localhost", port);
+            } catch (IOException e) {
+                if (attempt == 50) {
+                    throw e;
+                }
+                Thread.sleep(100);
+            }
+        }
+        messages = new ArrayList<>();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            messages.add(new byte[messageSize - 1]);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        connection.close();
+        server.shutdown(1, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<byte[]> batch() throws Exception {
+        return connection.sendBatch(messages).get();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public Object pipelined() throws Exception {
+        CompletableFuture<?>[] inFlight = new CompletableFuture<?>[BATCH_SIZE];
+        for (int i = 0; i < inFlight.length; i++) {
+            inFlight[i] = connection.send(messages.get(i));
+        }
+        return CompletableFuture.allOf(inFlight).get();
+    }
+}
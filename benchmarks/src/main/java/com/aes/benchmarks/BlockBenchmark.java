@@ -0,0 +1,55 @@
+package com.aes.benchmarks;
+
+import com.aes.AES128;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// Latência por bloco de 16 bytes e custo de montar o escalonamento de chaves
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BlockBenchmark {
+    @Param({"LEGACY", "TABLE"})
+    public AES128.Engine engine;
+
+    private byte[] key;
+    private AES128 aes;
+    private final byte[] block = new byte[16];
+    private final byte[] out = new byte[16];
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        key = new byte[16];
+        random.nextBytes(key);
+        random.nextBytes(block);
+        aes = new AES128(key, engine);
+    }
+
+    @Benchmark
+    public byte[] encryptBlock() {
+        aes.encryptBlock(block, 0, out, 0);
+        return out;
+    }
+
+    @Benchmark
+    public byte[] decryptBlock() {
+        aes.decryptBlock(block, 0, out, 0);
+        return out;
+    }
+
+    // Caminho público com padding: inclui a alocação do texto cifrado
+    @Benchmark
+    public byte[] encryptPadded() {
+        return aes.encrypt(block);
+    }
+
+    @Benchmark
+    public AES128 keySetup() {
+        return new AES128(key, engine);
+    }
+}
@@ -0,0 +1,121 @@
+package com.aes.benchmarks;
+
+import com.aes.AES128;
+import com.aes.AESGCM;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import org.openjdk.jmh.annotations.*;
+
+// Vazão em lote; o contador "bytes" sai em bytes/s (divida por 1e6 para MB/s).
+// Os métodos jdk* usam javax.crypto.Cipher (AES-NI quando disponível) como referência.
+// O fork carrega o módulo da Vector API; o VECTOR só roda de fato com o algoritmo instalado com
+// mvn -Pvector install, senão cai no BITSLICED.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class BulkBenchmark {
+    @Param({"1024", "65536", "1048576", "67108864"})
+    public int size;
+
+    @Param({"TABLE", "BITSLICED", "VECTOR"})
+    public AES128.Engine engine;
+
+    private AES128 aes;
+    private AESGCM gcm;
+    private byte[] iv;
+    private byte[] gcmIv;
+    private byte[] gcmOut;
+    private byte[] gcmScratch;
+    private byte[] in;
+    private byte[] out;
+    private Cipher jdkEcb;
+    private Cipher jdkCbc;
+    private Cipher jdkCtr;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Bytes {
+        public long bytes;
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        Random random = new Random(42);
+        byte[] key = new byte[16];
+        random.nextBytes(key);
+        iv = new byte[16];
+        random.nextBytes(iv);
+        in = new byte[size];
+        random.nextBytes(in);
+        out = new byte[size];
+        aes = new AES128(key, engine);
+        gcm = new AESGCM(aes);
+        gcmIv = Arrays.copyOf(iv, AESGCM.IV_SIZE);
+        gcmOut = new byte[size + AESGCM.TAG_SIZE];
+        gcmScratch = new byte[AESGCM.SCRATCH_SIZE];
+
+        SecretKeySpec spec = new SecretKeySpec(key, "AES");
+        jdkEcb = Cipher.getInstance("AES/ECB/NoPadding");
+        jdkEcb.init(Cipher.ENCRYPT_MODE, spec);
+        jdkCbc = Cipher.getInstance("AES/CBC/NoPadding");
+        jdkCbc.init(Cipher.ENCRYPT_MODE, spec, new IvParameterSpec(iv));
+        jdkCtr = Cipher.getInstance("AES/CTR/NoPadding");
+        jdkCtr.init(Cipher.ENCRYPT_MODE, spec, new IvParameterSpec(iv));
+    }
+
+    @Benchmark
+    public byte[] ecb(Bytes bytes) {
+        aes.encryptECB(in, 0, size, out, 0);
+        bytes.bytes += size;
+        return out;
+    }
+
+    @Benchmark
+    public byte[] cbc(Bytes bytes) {
+        aes.encryptCBC(iv, in, 0, size, out, 0);
+        bytes.bytes += size;
+        return out;
+    }
+
+    @Benchmark
+    public byte[] ctr(Bytes bytes) {
+        aes.processCTR(iv, in, 0, size, out, 0);
+        bytes.bytes += size;
+        return out;
+    }
+
+    @Benchmark
+    public byte[] gcm(Bytes bytes) {
+        gcm.encrypt(gcmIv, null, in, 0, size, gcmOut, 0, gcmScratch);
+        bytes.bytes += size;
+        return gcmOut;
+    }
+
+    @Benchmark
+    public byte[] jdkEcb(Bytes bytes) throws Exception {
+        jdkEcb.doFinal(in, 0, size, out, 0);
+        bytes.bytes += size;
+        return out;
+    }
+
+    @Benchmark
+    public byte[] jdkCbc(Bytes bytes) throws Exception {
+        jdkCbc.update(in, 0, size, out, 0);
+        bytes.bytes += size;
+        return out;
+    }
+
+    @Benchmark
+    public byte[] jdkCtr(Bytes bytes) throws Exception {
+        jdkCtr.update(in, 0, size, out, 0);
+        bytes.bytes += size;
+        return out;
+    }
+}
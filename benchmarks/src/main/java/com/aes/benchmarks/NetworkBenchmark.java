@@ -0,0 +1,95 @@
+package com.aes.benchmarks;
+
+import com.aes.AES128;
+import com.aes.AESClientPool;
+import com.aes.AESConnection;
+import com.aes.AESNIOServer;
+import com.aes.AESTCPServer;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// Ida e volta pelo loopback. roundTrip (SampleTime) mede a latência de uma requisição por vez,
+// com percentis p50/p99 no relatório; pipelined (Throughput) mede mensagens/s com várias em voo.
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NetworkBenchmark {
+    @Param({"THREAD", "NIO"})
+    public String server;
+
+    @Param({"16", "1024"})
+    public int messageSize;
+
+    private AESTCPServer threadServer;
+    private AESNIOServer nioServer;
+    private AESConnection connection;
+    private AESClientPool pool;
+    private byte[] message;
+
+    @Setup
+    public void setup() throws Exception {
+        AES128 aes = new AES128(new byte[16]);
+        int port;
+        try (ServerSocket probe = new ServerSocket(0)) {
+            port = probe.getLocalPort();
+        }
+        if (server.equals("NIO")) {
+            nioServer = new AESNIOServer(aes, port);
+            nioServer.start();
+        } else {
+            threadServer = new AESTCPServer(aes, port);
+            threadServer.start();
+        }
+        connection = connectWithRetry(aes, port);
+        pool = new AESClientPool(aes, "localhost", port, 4);
+        message = new byte[messageSize - 1];
+    }
+
+    private static AESConnection connectWithRetry(AES128 aes, int port) throws Exception {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return new AESConnection(aes, "localhost", port);
+            } catch (IOException e) {
+                if (attempt == 50) {
+                    throw e;
+                }
+                Thread.sleep(100);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        connection.close();
+        pool.close();
+        if (nioServer != null) {
+            nioServer.shutdown();
+        }
+        if (threadServer != null) {
+            threadServer.shutdown(1, TimeUnit.SECONDS);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public byte[] roundTrip() throws Exception {
+        return connection.send(message).get();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(64)
+    public Object pipelined() throws Exception {
+        CompletableFuture<?>[] inFlight = new CompletableFuture<?>[64];
+        for (int i = 0; i < inFlight.length; i++) {
+            inFlight[i] = pool.send(message);
+        }
+        return CompletableFuture.allOf(inFlight).get();
+    }
+}